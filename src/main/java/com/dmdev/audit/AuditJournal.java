@@ -0,0 +1,156 @@
+package com.dmdev.audit;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.event.SubscriptionListener;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only journal of status transitions written through memory-mapped segment files.
+ * Writers reserve a slot with a single atomic increment and fill it in place, so concurrent
+ * appends never block each other; only the writer that finds the segment full takes the lock
+ * to map the next one. Read the files back with {@link AuditJournalReader}.
+ */
+public class AuditJournal implements SubscriptionListener, AutoCloseable {
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final DurabilityPolicy durabilityPolicy;
+    private final Clock clock;
+    private final ScheduledExecutorService syncer;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private volatile JournalSegment current;
+    // writers that reserved a slot just before a rollover may still be filling the previous segment
+    private volatile JournalSegment previous;
+    private volatile boolean closed;
+
+    @SneakyThrows
+    public AuditJournal(Path directory, int recordsPerSegment, DurabilityPolicy durabilityPolicy,
+                        Duration syncInterval, Clock clock) {
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("recordsPerSegment must be positive: " + recordsPerSegment);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.durabilityPolicy = durabilityPolicy;
+        this.clock = clock;
+        long index = lastSegmentIndex(directory);
+        this.current = JournalSegment.openForAppend(directory, index,
+                JournalSegment.baseSequence(directory, index), recordsPerSegment);
+        if (durabilityPolicy == DurabilityPolicy.BATCHED) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "audit-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalNanos = syncInterval.toNanos();
+            syncer.scheduleWithFixedDelay(this::sync, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    @Override
+    public void onChange(Subscription subscription, Status oldStatus) {
+        if (oldStatus != subscription.getStatus()) {
+            append(subscription.getId(), subscription.getUserId(), oldStatus, subscription.getStatus());
+        }
+    }
+
+    public long append(int subscriptionId, int userId, Status oldStatus, Status newStatus) {
+        long timestamp = clock.millis();
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Audit journal is closed");
+            }
+            var segment = current;
+            int slot = segment.reserve();
+            if (slot >= 0) {
+                long written = segment.write(slot, subscriptionId, userId, oldStatus, newStatus, timestamp);
+                appended.increment();
+                // returns only once a force covering this record finished, possibly one of another writer
+                if (durabilityPolicy == DurabilityPolicy.EVERY_RECORD && segment.forceUpTo(written)) {
+                    syncs.increment();
+                }
+                return segment.sequenceOf(slot);
+            }
+            roll(segment);
+        }
+    }
+
+    /**
+     * Forces every record appended so far to the storage device.
+     */
+    public void sync() {
+        forceSegment(previous);
+        forceSegment(current);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        current.close();
+    }
+
+    @SneakyThrows
+    private synchronized void roll(JournalSegment full) {
+        if (current != full || closed) {
+            return;
+        }
+        var next = JournalSegment.openForAppend(directory, full.getIndex() + 1,
+                full.getBaseSequence() + full.getCapacity(), recordsPerSegment);
+        if (previous != null) {
+            previous.close();
+        }
+        previous = full;
+        current = next;
+        forceSegment(full);
+    }
+
+    private void forceSegment(JournalSegment segment) {
+        if (segment != null && segment.force()) {
+            syncs.increment();
+        }
+    }
+
+    private static long lastSegmentIndex(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegment)
+                    .mapToLong(JournalSegment::parseIndex)
+                    .max()
+                    .orElse(0L);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dmdev.audit;
+
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Reads the segment files written by {@link AuditJournal}, also while the journal is still appending.
+ * Records come back segment by segment in slot order, which is the order writers reserved them in.
+ *
+ * <p>Segments are mapped once per reader. Segments below the last two no longer receive records,
+ * so {@link #find} indexes them by subscription the first time and only scans the last two.
+ */
+public class AuditJournalReader {
+
+    // writers that reserved a slot just before a rollover may still be filling the previous segment
+    private static final int OPEN_SEGMENTS = 2;
+
+    private final Path directory;
+    private final Map<Path, JournalSegment> segments = new ConcurrentHashMap<>();
+    private final Map<Path, Map<Integer, int[]>> slotsBySubscription = new ConcurrentHashMap<>();
+
+    public AuditJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    @SneakyThrows
+    public void replay(Consumer<AuditRecord> consumer) {
+        for (Path path : getSegmentPaths()) {
+            var segment = getSegment(path);
+            for (int slot = 0; slot < segment.getCapacity(); slot++) {
+                var record = segment.read(slot);
+                if (record != null) {
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the transitions of one subscription with {@code from <= timestamp < to}.
+     */
+    @SneakyThrows
+    public List<AuditRecord> find(int subscriptionId, Instant from, Instant to) {
+        var paths = getSegmentPaths();
+        List<AuditRecord> records = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            var path = paths.get(i);
+            var segment = getSegment(path);
+            if (i < paths.size() - OPEN_SEGMENTS) {
+                var slots = slotsBySubscription.computeIfAbsent(path, ignored -> index(segment))
+                        .getOrDefault(subscriptionId, new int[0]);
+                for (int slot : slots) {
+                    addIfMatches(records, segment.read(slot), subscriptionId, from, to);
+                }
+            } else {
+                for (int slot = 0; slot < segment.getCapacity(); slot++) {
+                    addIfMatches(records, segment.read(slot), subscriptionId, from, to);
+                }
+            }
+        }
+        return records;
+    }
+
+    @SneakyThrows
+    private JournalSegment getSegment(Path path) {
+        var segment = segments.get(path);
+        if (segment == null) {
+            segment = JournalSegment.openForRead(path);
+            // a segment file is empty until the journal has mapped, and thereby sized, it
+            if (segment.getCapacity() > 0) {
+                segments.put(path, segment);
+            }
+        }
+        return segment;
+    }
+
+    private List<Path> getSegmentPaths() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            // segment file names are zero-padded indexes, so name order is append order
+            var paths = files.filter(JournalSegment::isSegment)
+                    .sorted()
+                    .toList();
+            segments.keySet().retainAll(paths);
+            slotsBySubscription.keySet().retainAll(paths);
+            return paths;
+        }
+    }
+
+    private static Map<Integer, int[]> index(JournalSegment segment) {
+        Map<Integer, List<Integer>> slots = new HashMap<>();
+        for (int slot = 0; slot < segment.getCapacity(); slot++) {
+            var record = segment.read(slot);
+            if (record != null) {
+                slots.computeIfAbsent(record.subscriptionId(), id -> new ArrayList<>()).add(slot);
+            }
+        }
+        Map<Integer, int[]> index = new HashMap<>();
+        slots.forEach((id, list) -> index.put(id, list.stream().mapToInt(Integer::intValue).toArray()));
+        return index;
+    }
+
+    private static void addIfMatches(List<AuditRecord> records, AuditRecord record,
+                                     int subscriptionId, Instant from, Instant to) {
+        if (record != null
+            && record.subscriptionId() == subscriptionId
+            && !record.timestamp().isBefore(from)
+            && record.timestamp().isBefore(to)) {
+            records.add(record);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.dmdev.audit;
+
+import com.dmdev.entity.Status;
+
+import java.time.Instant;
+
+public record AuditRecord(long sequence, int subscriptionId, int userId,
+                          Status oldStatus, Status newStatus, Instant timestamp) {
+}
@@ -0,0 +1,20 @@
+package com.dmdev.audit;
+
+public enum DurabilityPolicy {
+
+    /**
+     * Records reach the disk when the OS flushes dirty pages, when a segment is rolled over or on close.
+     */
+    OS,
+
+    /**
+     * Dirty segments are forced by a background thread once per sync interval,
+     * so one fsync covers every record appended during the interval.
+     */
+    BATCHED,
+
+    /**
+     * Every append forces its segment before returning.
+     */
+    EVERY_RECORD
+}
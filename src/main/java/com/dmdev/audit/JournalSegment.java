@@ -0,0 +1,238 @@
+package com.dmdev.audit;
+
+import com.dmdev.entity.Status;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One preallocated, memory-mapped segment file of fixed-size records.
+ * <pre>
+ * offset  size  field
+ *      0     4  commit marker, written last with release semantics
+ *      4     4  subscription id
+ *      8     4  user id
+ *     12     1  old status ordinal + 1, 0 when there was no previous row
+ *     13     1  new status ordinal + 1
+ *     14     2  reserved
+ *     16     8  timestamp, epoch millis
+ *     24     8  sequence
+ * </pre>
+ * A slot whose marker is not set was reserved but never completed (a crash mid-append)
+ * and is skipped by readers. Sequences continue from segment to segment: a segment starts at
+ * the sequence after the last slot of the previous one, whatever capacity that one had.
+ */
+final class JournalSegment {
+
+    static final int RECORD_SIZE = 32;
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".log";
+
+    private static final int COMMITTED = 0x41554431;
+    private static final VarHandle MARKER =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final Status[] STATUSES = Status.values();
+
+    private final long index;
+    private final long baseSequence;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicInteger next = new AtomicInteger();
+    // completed writes, and the ones a finished force is known to cover
+    private final AtomicLong written = new AtomicLong();
+    private final Object forceLock = new Object();
+    private long forced;
+
+    private JournalSegment(long index, long baseSequence, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+        this.index = index;
+        this.baseSequence = baseSequence;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment openForAppend(Path directory, long index, long baseSequence, int capacity) throws IOException {
+        var path = directory.resolve(fileName(index));
+        if (Files.exists(path) && Files.size(path) >= RECORD_SIZE) {
+            capacity = (int) (Files.size(path) / RECORD_SIZE);
+        }
+        var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        var segment = new JournalSegment(index, baseSequence, capacity, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE));
+        segment.next.set(segment.lastCommittedSlot() + 1);
+        return segment;
+    }
+
+    static JournalSegment openForRead(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int capacity = (int) (channel.size() / RECORD_SIZE);
+            // the mapping stays valid after the channel is closed
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) capacity * RECORD_SIZE);
+            var segment = new JournalSegment(parseIndex(path), 0, capacity, null, buffer);
+            int slot = segment.firstCommittedSlot();
+            return slot < 0 ? segment : new JournalSegment(segment.index,
+                    segment.read(slot).sequence() - slot, capacity, null, buffer);
+        }
+    }
+
+    /**
+     * Returns the sequence of the first slot of segment {@code index}: the base of the closest
+     * segment at or below it that has a record, plus the capacities of the segments in between.
+     */
+    static long baseSequence(Path directory, long index) throws IOException {
+        long capacities = 0;
+        for (long i = index; i >= 0; i--) {
+            var path = directory.resolve(fileName(i));
+            if (!Files.exists(path)) {
+                break;
+            }
+            var segment = openForRead(path);
+            if (segment.firstCommittedSlot() >= 0) {
+                return segment.baseSequence + capacities;
+            }
+            capacities += segment.capacity;
+        }
+        return capacities;
+    }
+
+    static String fileName(long index) {
+        return String.format("%s%019d%s", FILE_PREFIX, index, FILE_SUFFIX);
+    }
+
+    static long parseIndex(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    static boolean isSegment(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * Returns a free slot of this segment or -1 when the segment is full.
+     */
+    int reserve() {
+        int slot = next.getAndIncrement();
+        return slot < capacity ? slot : -1;
+    }
+
+    /**
+     * Fills the slot and returns the number of writes completed in this segment so far, which
+     * {@link #forceUpTo(long)} takes to flush at least this record.
+     */
+    long write(int slot, int subscriptionId, int userId, Status oldStatus, Status newStatus, long timestamp) {
+        long sequence = sequenceOf(slot);
+        int offset = slot * RECORD_SIZE;
+        buffer.putInt(offset + 4, subscriptionId);
+        buffer.putInt(offset + 8, userId);
+        buffer.put(offset + 12, encode(oldStatus));
+        buffer.put(offset + 13, encode(newStatus));
+        buffer.putLong(offset + 16, timestamp);
+        buffer.putLong(offset + 24, sequence);
+        MARKER.setRelease(buffer, offset, COMMITTED);
+        return written.incrementAndGet();
+    }
+
+    long sequenceOf(int slot) {
+        return baseSequence + slot;
+    }
+
+    /**
+     * Returns the record in the slot or {@code null} if the slot was never completed.
+     */
+    AuditRecord read(int slot) {
+        int offset = slot * RECORD_SIZE;
+        if ((int) MARKER.getAcquire(buffer, offset) != COMMITTED) {
+            return null;
+        }
+        return new AuditRecord(
+                buffer.getLong(offset + 24),
+                buffer.getInt(offset + 4),
+                buffer.getInt(offset + 8),
+                decode(buffer.get(offset + 12)),
+                decode(buffer.get(offset + 13)),
+                Instant.ofEpochMilli(buffer.getLong(offset + 16)));
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Flushes the segment to the storage device, a no-op if nothing was written since the last call.
+     */
+    boolean force() {
+        return forceUpTo(written.get());
+    }
+
+    /**
+     * Returns once the first {@code writes} completed writes are on the storage device. Forces run
+     * one at a time and cover every write completed before they started, so a caller whose write
+     * was covered by the force ahead of it returns false without forcing again.
+     */
+    boolean forceUpTo(long writes) {
+        synchronized (forceLock) {
+            if (forced >= writes) {
+                return false;
+            }
+            long covered = written.get();
+            buffer.force();
+            forced = covered;
+            return true;
+        }
+    }
+
+    void close() throws IOException {
+        force();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private int firstCommittedSlot() {
+        for (int slot = 0; slot < capacity; slot++) {
+            if ((int) MARKER.getAcquire(buffer, slot * RECORD_SIZE) == COMMITTED) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int lastCommittedSlot() {
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            if ((int) MARKER.getAcquire(buffer, slot * RECORD_SIZE) == COMMITTED) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static byte encode(Status status) {
+        return (byte) (status == null ? 0 : status.ordinal() + 1);
+    }
+
+    private static Status decode(byte value) {
+        return value == 0 ? null : STATUSES[value - 1];
+    }
+}
@@ -0,0 +1,97 @@
+package com.dmdev.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Bounded map evicting with the CLOCK (second chance) policy: a hit only sets a flag, so reads
+ * stay lock-free, and an insert into a full map sweeps the entries, clearing flags until it finds
+ * one that was not read since the previous sweep. The bound may be overshot by concurrent inserts.
+ */
+class ClockMap<K, V> {
+
+    private final int capacity;
+    private final Map<K, Slot<V>> slots = new ConcurrentHashMap<>();
+    private Iterator<Map.Entry<K, Slot<V>>> hand;
+    private long evictions;
+
+    ClockMap(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    V get(K key) {
+        var slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        slot.referenced = true;
+        return slot.value;
+    }
+
+    /**
+     * Returns the inserted slot, {@link #remove(Object, Object)} takes it to undo exactly this put.
+     */
+    Object put(K key, V value) {
+        if (!slots.containsKey(key) && slots.size() >= capacity) {
+            evict();
+        }
+        var slot = new Slot<>(value);
+        slots.put(key, slot);
+        return slot;
+    }
+
+    void remove(K key) {
+        slots.remove(key);
+    }
+
+    void remove(K key, Object slot) {
+        slots.remove(key, slot);
+    }
+
+    void removeIf(Predicate<V> predicate) {
+        slots.values().removeIf(slot -> predicate.test(slot.value));
+    }
+
+    void clear() {
+        slots.clear();
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private synchronized void evict() {
+        // every pass clears the flags it skips, so the second pass at the latest finds a victim
+        while (slots.size() >= capacity) {
+            if (hand == null || !hand.hasNext()) {
+                hand = slots.entrySet().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            var entry = hand.next();
+            var slot = entry.getValue();
+            if (slot.referenced) {
+                slot.referenced = false;
+            } else if (slots.remove(entry.getKey(), slot)) {
+                evictions++;
+            }
+        }
+    }
+
+    private static final class Slot<V> {
+
+        private final V value;
+        private volatile boolean referenced;
+
+        private Slot(V value) {
+            this.value = value;
+        }
+    }
+}
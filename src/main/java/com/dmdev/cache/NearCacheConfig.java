@@ -0,0 +1,31 @@
+package com.dmdev.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class NearCacheConfig {
+
+    /**
+     * Bound on cached lookups, split evenly between the by-id and the by-user entries.
+     * Inserting into a full half evicts an entry that was not read recently.
+     */
+    @Builder.Default
+    int maxEntries = 10_000;
+    @Builder.Default
+    Duration pollInterval = Duration.ofMillis(100);
+    /**
+     * Upper bound on how long a cached entry may lag behind a write of another process.
+     * While the change log has not been polled successfully for this long, reads bypass the cache.
+     */
+    @Builder.Default
+    Duration maxStaleness = Duration.ofSeconds(1);
+    /**
+     * Changes older than this are deleted from the log by the poller.
+     */
+    @Builder.Default
+    Duration changeRetention = Duration.ofHours(1);
+}
@@ -0,0 +1,247 @@
+package com.dmdev.cache;
+
+import com.dmdev.dao.SubscriptionChangeDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.entity.SubscriptionChange;
+import com.dmdev.event.SubscriptionListener;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-process cache of {@code findById}/{@code findByUserId} results that stays coherent with
+ * writes of other processes by polling the {@code subscription_change} log, which
+ * {@link SubscriptionDao} fills when the change log is enabled. Only the written ids and users
+ * are invalidated. Writes of this process are invalidated right after commit when the cache is
+ * registered as a listener of {@link com.dmdev.service.SubscriptionService}.
+ *
+ * <p>Intended for read-only callers: the service keeps reading the table inside its
+ * read-modify-write units of work.
+ */
+public class SubscriptionNearCache implements SubscriptionListener, AutoCloseable {
+
+    private static final int POLL_BATCH_SIZE = 1000;
+    private static final long NO_GAP = -1L;
+
+    private final SubscriptionDao subscriptionDao;
+    private final SubscriptionChangeDao changeDao;
+    private final NearCacheConfig config;
+    private final Clock clock;
+    private final ClockMap<Integer, Optional<Subscription>> byId;
+    private final ClockMap<Integer, List<Subscription>> byUserId;
+    // bumped by every invalidation, a load that raced with one must not be cached
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private ScheduledExecutorService poller;
+    private long cursor;
+    private long gapSinceMillis = NO_GAP;
+    private long lastPurgeMillis;
+    private volatile long lastPollMillis;
+
+    public SubscriptionNearCache(SubscriptionDao subscriptionDao, SubscriptionChangeDao changeDao,
+                                 NearCacheConfig config, Clock clock) {
+        this.subscriptionDao = subscriptionDao;
+        this.changeDao = changeDao;
+        this.config = config;
+        this.clock = clock;
+        this.byId = new ClockMap<>(config.getMaxEntries() / 2);
+        this.byUserId = new ClockMap<>(config.getMaxEntries() - config.getMaxEntries() / 2);
+        this.cursor = changeDao.getLastSeq();
+        this.lastPollMillis = clock.millis();
+        this.lastPurgeMillis = lastPollMillis;
+    }
+
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "near-cache-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = config.getPollInterval().toNanos();
+        poller.scheduleWithFixedDelay(this::pollQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Optional<Subscription> findById(Integer id) {
+        return get(byId, id, () -> subscriptionDao.findById(id)).map(SubscriptionNearCache::copyOf);
+    }
+
+    public List<Subscription> findByUserId(Integer userId) {
+        return get(byUserId, userId, () -> subscriptionDao.findByUserId(userId)).stream()
+                .map(SubscriptionNearCache::copyOf)
+                .toList();
+    }
+
+    @Override
+    public void onChange(Subscription subscription, Status oldStatus) {
+        invalidate(subscription.getId(), subscription.getUserId());
+    }
+
+    public void invalidate(Integer id, Integer userId) {
+        generation.incrementAndGet();
+        byId.remove(id);
+        if (userId != null) {
+            byUserId.remove(userId);
+        } else {
+            // the user of a deleted row is unknown, drop every list that contains it
+            byUserId.removeIf(subscriptions -> subscriptions.stream().anyMatch(s -> id.equals(s.getId())));
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Applies the changes logged since the previous poll. Called by the poller thread after
+     * {@link #start()}, tests call it directly.
+     */
+    public synchronized void poll() {
+        long startedAt = clock.millis();
+        if (startedAt - lastPollMillis > config.getMaxStaleness().toMillis()) {
+            // changes may have been purged from the log while we were not polling
+            clear();
+        }
+
+        List<SubscriptionChange> changes;
+        do {
+            changes = changeDao.findAfter(cursor, POLL_BATCH_SIZE);
+            if (!apply(changes, startedAt)) {
+                break;
+            }
+        } while (changes.size() == POLL_BATCH_SIZE);
+        lastPollMillis = startedAt;
+
+        if (startedAt - lastPurgeMillis >= config.getChangeRetention().toMillis()) {
+            changeDao.deleteBefore(clock.instant().minus(config.getChangeRetention()));
+            lastPurgeMillis = startedAt;
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        byId.clear();
+        byUserId.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getEvictions() {
+        return byId.getEvictions() + byUserId.getEvictions();
+    }
+
+    public long getPollFailures() {
+        return pollFailures.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        clear();
+    }
+
+    private <K, V> V get(ClockMap<K, V> entries, K key, Supplier<V> loader) {
+        if (clock.millis() - lastPollMillis > config.getMaxStaleness().toMillis()) {
+            bypasses.increment();
+            return loader.get();
+        }
+        var cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        var loaded = loader.get();
+        if (generation.get() == loadGeneration) {
+            var slot = entries.put(key, loaded);
+            if (generation.get() != loadGeneration) {
+                // an invalidation slipped in between the check and the put
+                entries.remove(key, slot);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Invalidates the changes and moves the cursor past the ones that are known to be complete.
+     * Sequence values are handed out before commit, so a gap means a transaction that logged an
+     * earlier change may still commit; rows behind a gap are re-read until it fills or is older
+     * than the staleness bound (rolled back transactions leave gaps that never fill). Skipping a
+     * gap flushes the whole cache: a change that commits into it later is never polled, so no
+     * entry cached before the skip can be trusted. Only a writer transaction that stays open
+     * longer than the staleness bound can still be missed, for entries loaded before it commits.
+     * Returns false when the cursor stopped at a gap.
+     */
+    private boolean apply(List<SubscriptionChange> changes, long now) {
+        boolean contiguous = true;
+        for (SubscriptionChange change : changes) {
+            invalidate(change.subscriptionId(), change.userId());
+            if (!contiguous) {
+                continue;
+            }
+            if (change.seq() != cursor + 1) {
+                if (gapSinceMillis == NO_GAP) {
+                    gapSinceMillis = now;
+                }
+                if (now - gapSinceMillis < config.getMaxStaleness().toMillis()) {
+                    contiguous = false;
+                    continue;
+                }
+                clear();
+            }
+            cursor = change.seq();
+            gapSinceMillis = NO_GAP;
+        }
+        return contiguous;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // reads fall back to the table once the staleness bound is exceeded
+            pollFailures.increment();
+        }
+    }
+
+    private static Subscription copyOf(Subscription subscription) {
+        return Subscription.builder()
+                .id(subscription.getId())
+                .userId(subscription.getUserId())
+                .name(subscription.getName())
+                .provider(subscription.getProvider())
+                .expirationDate(subscription.getExpirationDate())
+                .status(subscription.getStatus())
+                .build();
+    }
+}
@@ -0,0 +1,315 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import lombok.SneakyThrows;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free in-memory {@link SubscriptionRepository} for edge nodes, tests and benchmarks.
+ * Rows live in a two-level table of pages indexed by the primitive id, which is handed out
+ * densely like an identity column. Writes replace a row with compare-and-set; the user index
+ * and the expiration index are maintained around it, and readers check every index hit against
+ * the row, so a reader never returns a row that does not match its query.
+ *
+ * <p>There are no transactions: a write is visible as soon as it returns and is not rolled back
+ * when the surrounding unit of work fails.
+ */
+public class InMemorySubscriptionDao implements SubscriptionRepository {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    // 2^11 directories * 2^10 pages * 2^10 rows cover every positive int id
+    private static final int DIRECTORY_SIZE = 1 << (Integer.SIZE - 1 - 2 * PAGE_SHIFT);
+    private static final Subscription DELETED = new Subscription();
+
+    private final AtomicReferenceArray<Directory> directories = new AtomicReferenceArray<>(DIRECTORY_SIZE);
+    private final AtomicInteger lastId = new AtomicInteger();
+    // user id -> name -> id, enforces UNIQUE (user_id, name); inner maps are kept once created
+    private final ConcurrentMap<Integer, ConcurrentMap<String, Integer>> idsByUserId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<ExpirationKey> byExpiration = new ConcurrentSkipListSet<>();
+
+    @Override
+    public List<Subscription> findAll() {
+        List<Subscription> subscriptions = new ArrayList<>();
+        int last = lastId.get();
+        for (int id = 1; id <= last; id++) {
+            var row = getRow(id);
+            if (isLive(row)) {
+                subscriptions.add(copyOf(row));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        var row = getRow(id);
+        return isLive(row) ? Optional.of(copyOf(row)) : Optional.empty();
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        var ids = idsByUserId.get(userId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Subscription> subscriptions = new ArrayList<>(ids.size());
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            var row = getRow(entry.getValue());
+            if (isLive(row) && row.getUserId().equals(userId) && row.getName().equals(entry.getKey())) {
+                subscriptions.add(copyOf(row));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public List<Subscription> findByExpirationDateBetween(Instant from, Instant to) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (ExpirationKey key : byExpiration.subSet(
+                new ExpirationKey(from, Integer.MIN_VALUE), new ExpirationKey(to, Integer.MIN_VALUE))) {
+            var row = getRow(key.id());
+            if (isLive(row) && row.getExpirationDate().equals(key.expirationDate())) {
+                subscriptions.add(copyOf(row));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public List<Subscription> findExpired(Instant expiredBefore, Subscription after, int limit) {
+        var from = after == null
+                ? byExpiration.headSet(new ExpirationKey(expiredBefore, Integer.MIN_VALUE))
+                : byExpiration.subSet(ExpirationKey.of(after), false,
+                        new ExpirationKey(expiredBefore, Integer.MIN_VALUE), false);
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (ExpirationKey key : from) {
+            if (subscriptions.size() == limit) {
+                break;
+            }
+            var row = getRow(key.id());
+            if (isLive(row) && row.getStatus() == Status.EXPIRED
+                    && row.getExpirationDate().equals(key.expirationDate())) {
+                subscriptions.add(copyOf(row));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        int id = lastId.incrementAndGet();
+        var row = copyOf(entity).setId(id);
+        reserveKey(row);
+        getPage(id, true).set(id & PAGE_MASK, row);
+        byExpiration.add(ExpirationKey.of(row));
+        entity.setId(id);
+        return entity;
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        var page = getPage(entity.getId(), false);
+        if (page == null) {
+            return entity;
+        }
+        int slot = entity.getId() & PAGE_MASK;
+        while (true) {
+            var current = page.get(slot);
+            if (!isLive(current)) {
+                return entity;
+            }
+            var row = copyOf(entity);
+            boolean keyChanged = !sameKey(current, row);
+            if (keyChanged) {
+                reserveKey(row);
+            }
+            if (page.compareAndSet(slot, current, row)) {
+                if (keyChanged) {
+                    releaseKey(current);
+                }
+                if (!current.getExpirationDate().equals(row.getExpirationDate())) {
+                    byExpiration.add(ExpirationKey.of(row));
+                    removeExpirationKey(page, slot, ExpirationKey.of(current));
+                    if (page.get(slot) != row) {
+                        // a later write replaced our row before our key was added and could not remove it
+                        removeExpirationKey(page, slot, ExpirationKey.of(row));
+                    }
+                }
+                return entity;
+            }
+            if (keyChanged) {
+                releaseKey(row);
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        var page = getPage(id, false);
+        if (page == null) {
+            return false;
+        }
+        int slot = id & PAGE_MASK;
+        while (true) {
+            var current = page.get(slot);
+            if (!isLive(current)) {
+                return false;
+            }
+            if (page.compareAndSet(slot, current, DELETED)) {
+                releaseKey(current);
+                byExpiration.remove(ExpirationKey.of(current));
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        int last = lastId.get();
+        for (int id = 1; id <= last; id++) {
+            if (isLive(getRow(id))) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @SneakyThrows
+    private void reserveKey(Subscription row) {
+        var ids = idsByUserId.computeIfAbsent(row.getUserId(), userId -> new ConcurrentHashMap<>());
+        while (true) {
+            var owner = ids.putIfAbsent(row.getName(), row.getId());
+            if (owner == null || owner.equals(row.getId())) {
+                return;
+            }
+            var ownerRow = getRow(owner);
+            // a reserved id without a row is an insert in progress
+            if (ownerRow == null || ownerRow != DELETED && sameKey(ownerRow, row)) {
+                throw new SQLIntegrityConstraintViolationException(String.format(
+                        "Subscription (user_id, name) = (%d, %s) already exists", row.getUserId(), row.getName()));
+            }
+            // the owner was deleted or renamed, its reservation is stale
+            if (ids.replace(row.getName(), owner, row.getId())) {
+                return;
+            }
+        }
+    }
+
+    private void releaseKey(Subscription row) {
+        var ids = idsByUserId.get(row.getUserId());
+        if (ids != null) {
+            ids.remove(row.getName(), row.getId());
+        }
+    }
+
+    private Subscription getRow(Integer id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        var page = getPage(id, false);
+        return page == null ? null : page.get(id & PAGE_MASK);
+    }
+
+    /**
+     * Removes a key of a replaced row version. Versions of one id with the same expiration date
+     * share a key, so the key is put back if the row now in the slot still needs it; the writer
+     * of that row adds its key after its own CAS, so the key cannot be lost either way.
+     */
+    private void removeExpirationKey(Page page, int slot, ExpirationKey key) {
+        byExpiration.remove(key);
+        var latest = page.get(slot);
+        if (isLive(latest) && ExpirationKey.of(latest).equals(key)) {
+            byExpiration.add(key);
+        }
+    }
+
+    private Page getPage(int id, boolean create) {
+        int directoryIndex = id >>> (2 * PAGE_SHIFT);
+        var directory = directories.get(directoryIndex);
+        if (directory == null) {
+            if (!create) {
+                return null;
+            }
+            directories.compareAndSet(directoryIndex, null, new Directory());
+            directory = directories.get(directoryIndex);
+        }
+        int pageIndex = (id >>> PAGE_SHIFT) & PAGE_MASK;
+        var page = directory.get(pageIndex);
+        if (page == null) {
+            if (!create) {
+                return null;
+            }
+            directory.compareAndSet(pageIndex, null, new Page());
+            page = directory.get(pageIndex);
+        }
+        return page;
+    }
+
+    private static boolean isLive(Subscription row) {
+        return row != null && row != DELETED;
+    }
+
+    private static boolean sameKey(Subscription first, Subscription second) {
+        return Objects.equals(first.getUserId(), second.getUserId()) && Objects.equals(first.getName(), second.getName());
+    }
+
+    private static Subscription copyOf(Subscription subscription) {
+        return Subscription.builder()
+                .id(subscription.getId())
+                .userId(subscription.getUserId())
+                .name(subscription.getName())
+                .provider(subscription.getProvider())
+                .expirationDate(subscription.getExpirationDate())
+                .status(subscription.getStatus())
+                .build();
+    }
+
+    private static final class Page extends AtomicReferenceArray<Subscription> {
+
+        private static final long serialVersionUID = 1L;
+
+        private Page() {
+            super(PAGE_SIZE);
+        }
+    }
+
+    private static final class Directory extends AtomicReferenceArray<Page> {
+
+        private static final long serialVersionUID = 1L;
+
+        private Directory() {
+            super(PAGE_SIZE);
+        }
+    }
+
+    private record ExpirationKey(Instant expirationDate, int id) implements Comparable<ExpirationKey> {
+
+        private static final Comparator<ExpirationKey> ORDER = Comparator.comparing(ExpirationKey::expirationDate)
+                .thenComparingInt(ExpirationKey::id);
+
+        private static ExpirationKey of(Subscription row) {
+            return new ExpirationKey(row.getExpirationDate(), row.getId());
+        }
+
+        @Override
+        public int compareTo(ExpirationKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
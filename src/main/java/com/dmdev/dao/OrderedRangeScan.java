@@ -0,0 +1,135 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import lombok.SneakyThrows;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Reads ranges on an own pool of {@code parallelism} threads and hands their rows to the iterating
+ * thread in range order. Every range has a queue of at most {@code batchSize} rows and a worker may
+ * only start a range while fewer than {@code parallelism} ranges are unconsumed, so the rows held in
+ * memory are bounded by {@code parallelism * batchSize} instead of by the size of the table.
+ *
+ * <p>Workers block while the reader lags behind; close the scan when not iterating to the end.
+ */
+class OrderedRangeScan<R> implements Iterator<Subscription>, AutoCloseable {
+
+    private static final Subscription END = Subscription.builder().build();
+
+    private final List<R> ranges;
+    private final BiConsumer<R, Consumer<Subscription>> reader;
+    private final List<BlockingQueue<Subscription>> queues;
+    private final Semaphore window;
+    private final AtomicInteger nextRange = new AtomicInteger();
+    private final ExecutorService workers;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private int current;
+    private Subscription next;
+
+    OrderedRangeScan(List<R> ranges, int parallelism, int batchSize, BiConsumer<R, Consumer<Subscription>> reader) {
+        this.ranges = ranges;
+        this.reader = reader;
+        this.queues = ranges.stream()
+                .<BlockingQueue<Subscription>>map(range -> new LinkedBlockingQueue<>(batchSize))
+                .toList();
+        this.window = new Semaphore(parallelism);
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "subscription-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < Math.min(parallelism, ranges.size()); i++) {
+            workers.execute(this::produce);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && current < queues.size()) {
+            var row = take(queues.get(current));
+            if (row == END) {
+                if (failure != null) {
+                    close();
+                    rethrow(failure);
+                }
+                current++;
+                window.release();
+            } else {
+                next = row;
+            }
+        }
+        if (next == null) {
+            close();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Subscription next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        workers.shutdownNow();
+        // unblocks a worker that missed the interrupt while putting its end marker
+        queues.forEach(BlockingQueue::clear);
+    }
+
+    @SneakyThrows
+    private void produce() {
+        while (!closed) {
+            window.acquire();
+            int index = nextRange.getAndIncrement();
+            if (index >= ranges.size()) {
+                return;
+            }
+            var queue = queues.get(index);
+            try {
+                reader.accept(ranges.get(index), row -> put(queue, row));
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                if (!closed) {
+                    queue.put(END);
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void put(BlockingQueue<Subscription> queue, Subscription row) {
+        queue.put(row);
+    }
+
+    @SneakyThrows
+    private static Subscription take(BlockingQueue<Subscription> queue) {
+        return queue.take();
+    }
+
+    @SneakyThrows
+    private static void rethrow(Throwable failure) {
+        throw failure;
+    }
+}
@@ -0,0 +1,81 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.SubscriptionChange;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.Deadline;
+import lombok.SneakyThrows;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// deadline guards are try-with-resources only to be closed, javac flags them as unreferenced
+@SuppressWarnings("try")
+public class SubscriptionChangeDao {
+
+    private static final SubscriptionChangeDao INSTANCE = new SubscriptionChangeDao();
+
+    private static final String GET_AFTER_SQL = """
+            SELECT
+                seq,
+                subscription_id,
+                user_id,
+                changed_at
+            FROM subscription_change
+            WHERE seq > ?
+            ORDER BY seq
+            LIMIT ?
+            """;
+    private static final String GET_LAST_SEQ_SQL = "SELECT MAX(seq) FROM subscription_change";
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM subscription_change WHERE changed_at < ?";
+
+    public static SubscriptionChangeDao getInstance() {
+        return INSTANCE;
+    }
+
+    @SneakyThrows
+    public List<SubscriptionChange> findAfter(long seq, int limit) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_AFTER_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setObject(1, seq);
+            preparedStatement.setObject(2, limit);
+
+            var resultSet = preparedStatement.executeQuery();
+            List<SubscriptionChange> changes = new ArrayList<>();
+            while (resultSet.next()) {
+                changes.add(new SubscriptionChange(
+                        resultSet.getLong("seq"),
+                        resultSet.getInt("subscription_id"),
+                        resultSet.getObject("user_id", Integer.class),
+                        resultSet.getObject("changed_at", Timestamp.class).toInstant()));
+            }
+
+            return changes;
+        }
+    }
+
+    @SneakyThrows
+    public long getLastSeq() {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_LAST_SEQ_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            var seq = resultSet.getObject(1, Long.class);
+            return seq == null ? 0 : seq;
+        }
+    }
+
+    @SneakyThrows
+    public int deleteBefore(Instant changedAt) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(DELETE_BEFORE_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setObject(1, Timestamp.from(changedAt));
+
+            return preparedStatement.executeUpdate();
+        }
+    }
+}
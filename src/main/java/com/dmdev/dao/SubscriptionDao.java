@@ -4,21 +4,44 @@ import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.Deadline;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.StringPool;
+import com.dmdev.util.TransactionManager;
+import lombok.Setter;
 import lombok.SneakyThrows;
 
+import java.sql.Array;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 
-public class SubscriptionDao implements Dao<Integer, Subscription> {
+// deadline guards are try-with-resources only to be closed, javac flags them as unreferenced
+@SuppressWarnings("try")
+public class SubscriptionDao implements SubscriptionRepository {
 
     private static final SubscriptionDao INSTANCE = new SubscriptionDao();
+    private static final String CHANGE_LOG_KEY = "db.change-log.enabled";
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int SCAN_FETCH_SIZE = 1000;
 
     private static final String GET_ALL_SQL = """
             SELECT
@@ -32,7 +55,29 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
             """;
     private static final String GET_BY_ID_SQL = GET_ALL_SQL + " WHERE id = ?";
     private static final String GET_BY_USER_ID_SQL = GET_ALL_SQL + " WHERE user_id = ?";
+    private static final String GET_BY_USER_IDS_SQL = GET_ALL_SQL + " WHERE user_id = ANY(?)";
+    private static final String GET_BY_EXPIRATION_DATE_SQL =
+            GET_ALL_SQL + " WHERE expiration_date >= ? AND expiration_date < ? ORDER BY expiration_date";
+    private static final String GET_EXPIRED_SQL = GET_ALL_SQL + """
+             WHERE status = 'EXPIRED' AND expiration_date < ?
+            ORDER BY expiration_date, id
+            LIMIT ?
+            """;
+    private static final String GET_EXPIRED_AFTER_SQL = GET_ALL_SQL + """
+             WHERE status = 'EXPIRED' AND expiration_date < ?
+               AND (expiration_date, id) > (?, ?)
+            ORDER BY expiration_date, id
+            LIMIT ?
+            """;
+    private static final String GET_BY_ID_RANGE_SQL = GET_ALL_SQL + " WHERE id >= ? AND id <= ? ORDER BY id";
+    private static final String GET_ID_BOUNDS_SQL = "SELECT MIN(id), MAX(id) FROM subscription";
+    private static final String COUNT_BY_PROVIDER_AND_STATUS_SQL =
+            "SELECT provider, status, COUNT(*) AS total FROM subscription GROUP BY provider, status";
+    private static final String GET_KEYS_SQL = "SELECT user_id, name FROM subscription";
     private static final String DELETE_BY_ID_SQL = "DELETE FROM subscription WHERE id = ?";
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM subscription WHERE id = ANY(?)";
+    private static final String DELETE_EXPIRED_BY_IDS_SQL =
+            "DELETE FROM subscription WHERE id = ANY(?) AND status = 'EXPIRED' AND expiration_date < ?";
     private static final String SAVE_SQL =
             "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, ?, ?, ?)";
     private static final String UPDATE_BY_ID_SQL = """
@@ -44,16 +89,78 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
                 status = ?
             WHERE id = ?
             """;
+    private static final String SAVE_CHANGE_SQL =
+            "INSERT INTO subscription_change (subscription_id, user_id) VALUES (?, ?)";
+    // an update moving the row to another user must also invalidate the lists of the previous one
+    private static final String SAVE_MOVE_CHANGE_SQL =
+            "INSERT INTO subscription_change (subscription_id, user_id) SELECT id, user_id FROM subscription WHERE id = ? AND user_id <> ?";
+    private static final String SAVE_DELETE_CHANGE_SQL =
+            "INSERT INTO subscription_change (subscription_id, user_id) SELECT id, user_id FROM subscription WHERE id = ?";
+    private static final String SAVE_DELETE_CHANGES_SQL =
+            "INSERT INTO subscription_change (subscription_id, user_id) SELECT id, user_id FROM subscription WHERE id = ANY(?)";
+    private static final String SAVE_DELETE_EXPIRED_CHANGES_SQL = SAVE_DELETE_CHANGES_SQL
+            + " AND status = 'EXPIRED' AND expiration_date < ?";
+
+    // pgjdbc switches a statement to a server-side prepared one after this many executions (its default)
+    private static final int PREPARE_THRESHOLD = 5;
+    private static final int NEVER_EXISTING_ID = -1;
+
+    /**
+     * Records every write in {@code subscription_change} so that near caches of other processes
+     * can invalidate the written ids, see {@link com.dmdev.cache.SubscriptionNearCache}.
+     */
+    @Setter
+    private volatile boolean changeLogEnabled = Boolean.parseBoolean(PropertiesUtil.get(CHANGE_LOG_KEY));
 
     public static SubscriptionDao getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * Executes the statements of the hot path {@value #PREPARE_THRESHOLD} times on the connection
+     * for an id that never exists, so that pgjdbc has them prepared on the server (preparing
+     * alone does not reach it) and H2 has them in the query cache of the session before the first
+     * request. They touch no rows. Inserts are left out, they would consume sequence values and
+     * leave gaps in the change log.
+     */
+    public void prepareStatements(Connection connection) throws SQLException {
+        try (var byId = connection.prepareStatement(GET_BY_ID_SQL);
+             var byUserId = connection.prepareStatement(GET_BY_USER_ID_SQL);
+             var byUserIds = connection.prepareStatement(GET_BY_USER_IDS_SQL);
+             var update = connection.prepareStatement(UPDATE_BY_ID_SQL);
+             var delete = connection.prepareStatement(DELETE_BY_ID_SQL);
+             var moveChange = connection.prepareStatement(SAVE_MOVE_CHANGE_SQL)) {
+            byId.setObject(1, NEVER_EXISTING_ID);
+            byUserId.setObject(1, NEVER_EXISTING_ID);
+            byUserIds.setArray(1, connection.createArrayOf("INTEGER", new Object[]{NEVER_EXISTING_ID}));
+            prepareStatementToUpsert(update, Subscription.builder()
+                    .userId(NEVER_EXISTING_ID)
+                    .name("warm-up")
+                    .provider(Provider.APPLE)
+                    .expirationDate(Instant.EPOCH)
+                    .status(Status.ACTIVE)
+                    .build());
+            update.setObject(6, NEVER_EXISTING_ID);
+            delete.setObject(1, NEVER_EXISTING_ID);
+            moveChange.setObject(1, NEVER_EXISTING_ID);
+            moveChange.setObject(2, NEVER_EXISTING_ID);
+            for (int i = 0; i < PREPARE_THRESHOLD; i++) {
+                byId.executeQuery().close();
+                byUserId.executeQuery().close();
+                byUserIds.executeQuery().close();
+                update.executeUpdate();
+                delete.executeUpdate();
+                moveChange.executeUpdate();
+            }
+        }
+    }
+
     @Override
     @SneakyThrows
     public List<Subscription> findAll() {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_ALL_SQL)) {
+             var preparedStatement = connection.prepareStatement(GET_ALL_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             var resultSet = preparedStatement.executeQuery();
             List<Subscription> subscriptions = new ArrayList<>();
             while (resultSet.next()) {
@@ -68,7 +175,8 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
     @SneakyThrows
     public Optional<Subscription> findById(Integer id) {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL)) {
+             var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             preparedStatement.setObject(1, id);
 
             var resultSet = preparedStatement.executeQuery();
@@ -82,10 +190,18 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
     @SneakyThrows
     public boolean delete(Integer id) {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL)) {
+             var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             preparedStatement.setObject(1, id);
 
-            return preparedStatement.executeUpdate() > 0;
+            boolean ownTransaction = beginChangeLogTransaction(connection);
+            if (changeLogEnabled) {
+                // logged before the row is gone, the user id comes from the row itself
+                saveChange(connection, SAVE_DELETE_CHANGE_SQL, id, null);
+            }
+            var deleted = preparedStatement.executeUpdate() > 0;
+            commitChangeLogTransaction(connection, ownTransaction);
+            return deleted;
         }
     }
 
@@ -93,11 +209,20 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
     @SneakyThrows
     public Subscription update(Subscription entity) {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
+             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             prepareStatementToUpsert(preparedStatement, entity);
             preparedStatement.setObject(6, entity.getId());
 
+            boolean ownTransaction = beginChangeLogTransaction(connection);
+            if (changeLogEnabled) {
+                saveChange(connection, SAVE_MOVE_CHANGE_SQL, entity.getId(), entity.getUserId());
+            }
             preparedStatement.executeUpdate();
+            if (changeLogEnabled) {
+                saveChange(connection, SAVE_CHANGE_SQL, entity.getId(), entity.getUserId());
+            }
+            commitChangeLogTransaction(connection, ownTransaction);
             return entity;
         }
     }
@@ -106,23 +231,31 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
     @SneakyThrows
     public Subscription insert(Subscription entity) {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
+             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             prepareStatementToUpsert(preparedStatement, entity);
 
+            boolean ownTransaction = beginChangeLogTransaction(connection);
             preparedStatement.executeUpdate();
 
             var generatedKeys = preparedStatement.getGeneratedKeys();
             generatedKeys.next();
             entity.setId(generatedKeys.getObject("id", Integer.class));
+            if (changeLogEnabled) {
+                saveChange(connection, SAVE_CHANGE_SQL, entity.getId(), entity.getUserId());
+            }
+            commitChangeLogTransaction(connection, ownTransaction);
 
             return entity;
         }
     }
 
+    @Override
     @SneakyThrows
     public List<Subscription> findByUserId(Integer userId) {
         try (var connection = ConnectionManager.get();
-             var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL)) {
+             var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
             preparedStatement.setObject(1, userId);
 
             var resultSet = preparedStatement.executeQuery();
@@ -135,11 +268,345 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
         }
     }
 
+    @Override
+    @SneakyThrows
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_BY_USER_IDS_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setArray(1, connection.createArrayOf("INTEGER", userIds.toArray()));
+
+            var resultSet = preparedStatement.executeQuery();
+            List<Subscription> subscriptions = new ArrayList<>();
+            while (resultSet.next()) {
+                subscriptions.add(buildEntity(resultSet));
+            }
+
+            return subscriptions;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> findByExpirationDateBetween(Instant from, Instant to) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_BY_EXPIRATION_DATE_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setObject(1, Timestamp.from(from));
+            preparedStatement.setObject(2, Timestamp.from(to));
+
+            var resultSet = preparedStatement.executeQuery();
+            List<Subscription> subscriptions = new ArrayList<>();
+            while (resultSet.next()) {
+                subscriptions.add(buildEntity(resultSet));
+            }
+
+            return subscriptions;
+        }
+    }
+
+    /**
+     * Keyset-paginated over the {@code (status, expiration_date)} index, so a page costs the same
+     * no matter how many rows were already read.
+     */
+    @Override
+    @SneakyThrows
+    public List<Subscription> findExpired(Instant expiredBefore, Subscription after, int limit) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(after == null ? GET_EXPIRED_SQL : GET_EXPIRED_AFTER_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            int index = 1;
+            preparedStatement.setObject(index++, Timestamp.from(expiredBefore));
+            if (after != null) {
+                preparedStatement.setObject(index++, Timestamp.from(after.getExpirationDate()));
+                preparedStatement.setObject(index++, after.getId());
+            }
+            preparedStatement.setObject(index, limit);
+
+            var resultSet = preparedStatement.executeQuery();
+            List<Subscription> subscriptions = new ArrayList<>();
+            while (resultSet.next()) {
+                subscriptions.add(buildEntity(resultSet));
+            }
+
+            return subscriptions;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Map<Provider, Map<Status, Long>> countByProviderAndStatus() {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(COUNT_BY_PROVIDER_AND_STATUS_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            var resultSet = preparedStatement.executeQuery();
+            Map<Provider, Map<Status, Long>> counts = new EnumMap<>(Provider.class);
+            while (resultSet.next()) {
+                counts.computeIfAbsent(Provider.valueOf(resultSet.getString("provider")),
+                                provider -> new EnumMap<>(Status.class))
+                        .put(Status.valueOf(resultSet.getString("status")), resultSet.getLong("total"));
+            }
+
+            return counts;
+        }
+    }
+
+    /**
+     * Inserts the entities with one JDBC batch and sets their generated ids.
+     */
+    @Override
+    @SneakyThrows
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            for (Subscription entity : entities) {
+                prepareStatementToUpsert(preparedStatement, entity);
+                preparedStatement.addBatch();
+            }
+
+            boolean ownTransaction = beginChangeLogTransaction(connection);
+            preparedStatement.executeBatch();
+
+            var generatedKeys = preparedStatement.getGeneratedKeys();
+            for (Subscription entity : entities) {
+                generatedKeys.next();
+                entity.setId(generatedKeys.getObject("id", Integer.class));
+            }
+            if (changeLogEnabled) {
+                saveChanges(connection, SAVE_CHANGE_SQL, entities);
+            }
+            commitChangeLogTransaction(connection, ownTransaction);
+
+            return entities;
+        }
+    }
+
+    /**
+     * Updates the entities with one JDBC batch.
+     */
+    @Override
+    @SneakyThrows
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            for (Subscription entity : entities) {
+                prepareStatementToUpsert(preparedStatement, entity);
+                preparedStatement.setObject(6, entity.getId());
+                preparedStatement.addBatch();
+            }
+
+            boolean ownTransaction = beginChangeLogTransaction(connection);
+            if (changeLogEnabled) {
+                saveChanges(connection, SAVE_MOVE_CHANGE_SQL, entities);
+            }
+            preparedStatement.executeBatch();
+            if (changeLogEnabled) {
+                saveChanges(connection, SAVE_CHANGE_SQL, entities);
+            }
+            commitChangeLogTransaction(connection, ownTransaction);
+
+            return entities;
+        }
+    }
+
+    /**
+     * Deletes the rows with one set-based statement.
+     */
+    @Override
+    public int deleteAll(Collection<Integer> ids) {
+        return deleteByIds(DELETE_BY_IDS_SQL, SAVE_DELETE_CHANGES_SQL, ids, null);
+    }
+
+    @Override
+    public int deleteExpired(Collection<Integer> ids, Instant expiredBefore) {
+        return deleteByIds(DELETE_EXPIRED_BY_IDS_SQL, SAVE_DELETE_EXPIRED_CHANGES_SQL, ids, expiredBefore);
+    }
+
+    /**
+     * Reads every row with {@code parallelism} threads of an own pool, each range of ids through a
+     * cursor of {@value #SCAN_FETCH_SIZE} rows. When {@code ordered} the consumer runs on the calling
+     * thread in id order, see {@link #streamInParallel}. Otherwise it is called from the pool threads
+     * concurrently and in no particular order, so it must be thread-safe.
+     */
+    @SneakyThrows
+    public void scanInParallel(int parallelism, boolean ordered, Consumer<Subscription> consumer) {
+        var ranges = splitIdRange(parallelism);
+        if (ordered) {
+            try (var scan = new OrderedRangeScan<>(ranges, parallelism, SCAN_FETCH_SIZE, this::scanIdRange)) {
+                scan.forEachRemaining(consumer);
+            }
+            return;
+        }
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> ranges.parallelStream().forEach(range -> scanIdRange(range, consumer))).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Streams every row in id order while {@code parallelism} threads of an own pool read ahead.
+     * At most {@code parallelism} ranges of {@value #SCAN_FETCH_SIZE} rows are buffered, so memory
+     * does not grow with the table. The stream is sequential, so operations chained on it do not end
+     * up on the common pool. Close it when it is not consumed to the end, the readers block otherwise.
+     */
+    public Stream<Subscription> streamInParallel(int parallelism) {
+        var scan = new OrderedRangeScan<>(splitIdRange(parallelism), parallelism, SCAN_FETCH_SIZE, this::scanIdRange);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(scan::close);
+    }
+
+    @SneakyThrows
+    public void scanKeys(BiConsumer<Integer, String> consumer) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_KEYS_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setFetchSize(SCAN_FETCH_SIZE);
+
+            var resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                consumer.accept(resultSet.getInt("user_id"), resultSet.getString("name"));
+            }
+        }
+    }
+
+    @SneakyThrows
+    private List<IdRange> splitIdRange(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_ID_BOUNDS_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            var min = resultSet.getObject(1, Integer.class);
+            var max = resultSet.getObject(2, Integer.class);
+            if (min == null) {
+                return List.of();
+            }
+
+            // more ranges than threads so that a range with many rows does not stall the others
+            long rangeCount = Math.min((long) parallelism * RANGES_PER_THREAD, (long) max - min + 1);
+            long rangeSize = ((long) max - min + rangeCount) / rangeCount;
+            List<IdRange> ranges = new ArrayList<>();
+            for (long from = min; from <= max; from += rangeSize) {
+                ranges.add(new IdRange((int) from, (int) Math.min(max, from + rangeSize - 1)));
+            }
+            return ranges;
+        }
+    }
+
+    @SneakyThrows
+    private void scanIdRange(IdRange range, Consumer<Subscription> consumer) {
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(GET_BY_ID_RANGE_SQL);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            // pgjdbc only reads through a cursor of fetch size rows inside a transaction
+            connection.setAutoCommit(false);
+            preparedStatement.setFetchSize(SCAN_FETCH_SIZE);
+            preparedStatement.setObject(1, range.from());
+            preparedStatement.setObject(2, range.to());
+
+            var resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                consumer.accept(buildEntity(resultSet));
+            }
+        }
+    }
+
+    @SneakyThrows
+    private int deleteByIds(String sql, String changeSql, Collection<Integer> ids, Instant expiredBefore) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (var connection = ConnectionManager.get();
+             var preparedStatement = connection.prepareStatement(sql);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            var idArray = connection.createArrayOf("INTEGER", ids.toArray());
+            boolean ownTransaction = beginChangeLogTransaction(connection);
+            if (changeLogEnabled) {
+                // logged before the rows are gone, with the same filter as the delete
+                try (var changeStatement = connection.prepareStatement(changeSql);
+                     var changeDeadlineGuard = Deadline.guard(changeStatement)) {
+                    bindIds(changeStatement, idArray, expiredBefore);
+                    changeStatement.executeUpdate();
+                }
+            }
+            bindIds(preparedStatement, idArray, expiredBefore);
+            var deleted = preparedStatement.executeUpdate();
+            commitChangeLogTransaction(connection, ownTransaction);
+            return deleted;
+        }
+    }
+
+    /**
+     * Outside a unit of work the row write and its change-log insert would be two autocommits,
+     * and a failure between them would lose the invalidation. Returns true when this call opened
+     * a transaction of its own, which {@link #commitChangeLogTransaction} then commits; a failure
+     * rolls it back when the connection goes back to the pool.
+     */
+    private boolean beginChangeLogTransaction(Connection connection) throws SQLException {
+        if (!changeLogEnabled || TransactionManager.isActive()) {
+            return false;
+        }
+        connection.setAutoCommit(false);
+        return true;
+    }
+
+    private void commitChangeLogTransaction(Connection connection, boolean ownTransaction) throws SQLException {
+        if (ownTransaction) {
+            connection.commit();
+        }
+    }
+
+    private void bindIds(PreparedStatement preparedStatement, Array ids, Instant expiredBefore) throws SQLException {
+        preparedStatement.setArray(1, ids);
+        if (expiredBefore != null) {
+            preparedStatement.setObject(2, Timestamp.from(expiredBefore));
+        }
+    }
+
+    private void saveChange(Connection connection, String sql, Integer id, Integer userId) throws SQLException {
+        try (var preparedStatement = connection.prepareStatement(sql);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            preparedStatement.setObject(1, id);
+            if (userId != null) {
+                preparedStatement.setObject(2, userId);
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void saveChanges(Connection connection, String sql, List<Subscription> entities) throws SQLException {
+        try (var preparedStatement = connection.prepareStatement(sql);
+             var deadlineGuard = Deadline.guard(preparedStatement)) {
+            for (Subscription entity : entities) {
+                preparedStatement.setObject(1, entity.getId());
+                preparedStatement.setObject(2, entity.getUserId());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
     private Subscription buildEntity(ResultSet resultSet) throws SQLException {
         return Subscription.builder()
                 .id(resultSet.getObject("id", Integer.class))
                 .userId(resultSet.getObject("user_id", Integer.class))
-                .name(resultSet.getObject("name", String.class))
+                .name(StringPool.getInstance().intern(resultSet.getObject("name", String.class)))
                 .provider(Provider.valueOf(resultSet.getObject("provider", String.class)))
                 .expirationDate(resultSet.getObject("expiration_date", Timestamp.class).toInstant())
                 .status(Status.valueOf(resultSet.getObject("status", String.class)))
@@ -153,4 +620,7 @@ public class SubscriptionDao implements Dao<Integer, Subscription> {
         preparedStatement.setObject(4, Timestamp.from(entity.getExpirationDate()));
         preparedStatement.setObject(5, entity.getStatus().name());
     }
+
+    private record IdRange(int from, int to) {
+    }
 }
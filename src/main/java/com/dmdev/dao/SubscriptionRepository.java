@@ -0,0 +1,108 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Subscription queries beyond the generic {@link Dao}, implemented by the JDBC
+ * {@link SubscriptionDao} and by {@link InMemorySubscriptionDao}.
+ */
+public interface SubscriptionRepository extends Dao<Integer, Subscription> {
+
+    List<Subscription> findByUserId(Integer userId);
+
+    default List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (Integer userId : userIds) {
+            subscriptions.addAll(findByUserId(userId));
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Returns the subscriptions with {@code from <= expiration_date < to} ordered by expiration date.
+     */
+    List<Subscription> findByExpirationDateBetween(Instant from, Instant to);
+
+    /**
+     * Returns up to {@code limit} {@link Status#EXPIRED} subscriptions with {@code expiration_date < expiredBefore}
+     * ordered by expiration date and id, starting right after {@code after} or from the first one when it is null.
+     */
+    default List<Subscription> findExpired(Instant expiredBefore, Subscription after, int limit) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (Subscription subscription : findByExpirationDateBetween(Instant.EPOCH, expiredBefore)) {
+            if (subscriptions.size() == limit) {
+                break;
+            }
+            if (subscription.getStatus() == Status.EXPIRED && (after == null || isAfter(subscription, after))) {
+                subscriptions.add(subscription);
+            }
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Returns the number of rows per provider and status; pairs without rows are absent.
+     */
+    default Map<Provider, Map<Status, Long>> countByProviderAndStatus() {
+        Map<Provider, Map<Status, Long>> counts = new EnumMap<>(Provider.class);
+        for (Subscription subscription : findAll()) {
+            counts.computeIfAbsent(subscription.getProvider(), provider -> new EnumMap<>(Status.class))
+                    .merge(subscription.getStatus(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    default List<Subscription> insertAll(List<Subscription> entities) {
+        entities.forEach(this::insert);
+        return entities;
+    }
+
+    default List<Subscription> updateAll(List<Subscription> entities) {
+        entities.forEach(this::update);
+        return entities;
+    }
+
+    /**
+     * Deletes the subscriptions with the given ids and returns the number of deleted rows.
+     */
+    default int deleteAll(Collection<Integer> ids) {
+        int deleted = 0;
+        for (Integer id : ids) {
+            if (delete(id)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Like {@link #deleteAll(Collection)}, but skips rows that are no longer {@link Status#EXPIRED}
+     * before {@code expiredBefore}, e.g. because they were renewed after they had been read.
+     */
+    default int deleteExpired(Collection<Integer> ids, Instant expiredBefore) {
+        int deleted = 0;
+        for (Integer id : ids) {
+            var expired = findById(id)
+                    .filter(subscription -> subscription.getStatus() == Status.EXPIRED)
+                    .filter(subscription -> subscription.getExpirationDate().isBefore(expiredBefore));
+            if (expired.isPresent() && delete(id)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isAfter(Subscription subscription, Subscription after) {
+        int byDate = subscription.getExpirationDate().compareTo(after.getExpirationDate());
+        return byDate > 0 || byDate == 0 && subscription.getId() > after.getId();
+    }
+}
@@ -0,0 +1,10 @@
+package com.dmdev.entity;
+
+import java.time.Instant;
+
+/**
+ * A row of the {@code subscription_change} log: the subscription with this id, and the lists of
+ * this user, were written at {@code changedAt}.
+ */
+public record SubscriptionChange(long seq, int subscriptionId, Integer userId, Instant changedAt) {
+}
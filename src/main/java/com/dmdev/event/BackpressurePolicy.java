@@ -0,0 +1,5 @@
+package com.dmdev.event;
+
+public enum BackpressurePolicy {
+    BLOCK, DROP
+}
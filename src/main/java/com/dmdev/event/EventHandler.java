@@ -0,0 +1,7 @@
+package com.dmdev.event;
+
+@FunctionalInterface
+public interface EventHandler {
+
+    void onEvent(SubscriptionEvent event, boolean endOfBatch);
+}
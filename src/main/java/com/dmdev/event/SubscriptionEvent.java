@@ -0,0 +1,23 @@
+package com.dmdev.event;
+
+import com.dmdev.entity.Status;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Preallocated ring buffer slot. Instances are reused, so handlers have to copy
+ * the values they want to keep beyond {@link EventHandler#onEvent}.
+ */
+@Getter
+@Setter(AccessLevel.PACKAGE)
+@ToString
+public class SubscriptionEvent {
+    private long sequence;
+    private int id;
+    private int userId;
+    private Status oldStatus;
+    private Status newStatus;
+    private long timestamp;
+}
@@ -0,0 +1,181 @@
+package com.dmdev.event;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SubscriptionEventRingBuffer implements SubscriptionListener, AutoCloseable {
+
+    private static final long UNPUBLISHED = -1L;
+
+    private final SubscriptionEvent[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1L);
+    private final List<EventConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final WaitStrategy waitStrategy;
+    private final BackpressurePolicy backpressurePolicy;
+    private final Clock clock;
+    private final LongAdder dropped = new LongAdder();
+
+    public SubscriptionEventRingBuffer(int capacity, WaitStrategy waitStrategy,
+                                       BackpressurePolicy backpressurePolicy, Clock clock) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.entries = new SubscriptionEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new SubscriptionEvent();
+            published.set(i, UNPUBLISHED);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.backpressurePolicy = backpressurePolicy;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onChange(Subscription subscription, Status oldStatus) {
+        publish(subscription.getId(), subscription.getUserId(), oldStatus, subscription.getStatus());
+    }
+
+    public boolean publish(int id, int userId, Status oldStatus, Status newStatus) {
+        long sequence = claim();
+        if (sequence == UNPUBLISHED) {
+            dropped.increment();
+            return false;
+        }
+        int index = (int) (sequence & mask);
+        var event = entries[index];
+        event.setSequence(sequence);
+        event.setId(id);
+        event.setUserId(userId);
+        event.setOldStatus(oldStatus);
+        event.setNewStatus(newStatus);
+        event.setTimestamp(clock.millis());
+        published.setRelease(index, sequence);
+        return true;
+    }
+
+    public EventConsumer subscribe(String name, EventHandler handler) {
+        var consumer = new EventConsumer(name, handler, cursor.get());
+        consumers.add(consumer);
+        consumer.thread.start();
+        return consumer;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        consumers.forEach(EventConsumer::close);
+    }
+
+    private long claim() {
+        long attempt = 0;
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            if (next - entries.length > minConsumerSequence()) {
+                if (backpressurePolicy == BackpressurePolicy.DROP) {
+                    return UNPUBLISHED;
+                }
+                waitStrategy.idle(attempt++);
+            } else if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (EventConsumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+
+    public class EventConsumer implements AutoCloseable {
+
+        @Getter
+        private final String name;
+        private final EventHandler handler;
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean running = true;
+
+        private EventConsumer(String name, EventHandler handler, long startSequence) {
+            this.name = name;
+            this.handler = handler;
+            this.sequence = new AtomicLong(startSequence);
+            this.thread = new Thread(this::run, "subscription-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        public long getLag() {
+            return cursor.get() - sequence.get();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            consumers.remove(this);
+            thread.interrupt();
+        }
+
+        private void run() {
+            long attempt = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                if (!isPublished(next)) {
+                    waitStrategy.idle(attempt++);
+                    continue;
+                }
+                attempt = 0;
+                long last = next;
+                while (isPublished(last + 1)) {
+                    last++;
+                }
+                for (long current = next; current <= last; current++) {
+                    try {
+                        handler.onEvent(entries[(int) (current & mask)], current == last);
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                    }
+                }
+                sequence.setRelease(last);
+            }
+        }
+
+        private boolean isPublished(long sequence) {
+            return published.getAcquire((int) (sequence & mask)) == sequence;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.dmdev.event;
+
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+
+/**
+ * Called by {@link com.dmdev.service.SubscriptionService} after a successful write.
+ * Implementations run on the caller's thread and must be fast; an exception is logged and
+ * skips neither the other listeners nor the result of the already committed call.
+ */
+@FunctionalInterface
+public interface SubscriptionListener {
+
+    void onChange(Subscription subscription, Status oldStatus);
+}
@@ -0,0 +1,41 @@
+package com.dmdev.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public enum WaitStrategy {
+
+    BUSY_SPIN {
+        @Override
+        public void idle(long attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    YIELDING {
+        @Override
+        public void idle(long attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    SLEEPING {
+        @Override
+        public void idle(long attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    public abstract void idle(long attempt);
+}
@@ -0,0 +1,8 @@
+package com.dmdev.exception;
+
+public class CircuitBreakerOpenException extends AdmissionRejectedException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
@@ -4,6 +4,7 @@ import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.util.StringPool;
 import lombok.NoArgsConstructor;
 
 import static lombok.AccessLevel.PRIVATE;
@@ -21,7 +22,7 @@ public class CreateSubscriptionMapper implements Mapper<CreateSubscriptionDto, S
     public Subscription map(CreateSubscriptionDto object) {
         return Subscription.builder()
                 .userId(object.getUserId())
-                .name(object.getName())
+                .name(StringPool.getInstance().intern(object.getName()))
                 .provider(Provider.findByNameOpt(object.getProvider()).orElse(null))
                 .expirationDate(object.getExpirationDate())
                 .status(Status.ACTIVE)
@@ -0,0 +1,92 @@
+package com.dmdev.resilience;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD limiter driven by latency: the limit grows by one per limit-sized window of fast calls
+ * and is cut multiplicatively when a call fails or takes longer than {@code tolerance} times
+ * the best latency seen recently. That baseline drifts up with elapsed time rather than with the
+ * number of calls, so a burst of slow calls keeps backing off instead of becoming the new normal.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_LATENCY_DRIFT_PER_SECOND = 1.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Clock clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+    private volatile double limit;
+    private double minLatencyNanos = Double.MAX_VALUE;
+    private long minLatencyUpdatedMillis;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this(initialLimit, minLimit, maxLimit, tolerance, Clock.systemUTC());
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, Clock clock) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("expected 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.clock = clock;
+        this.minLatencyUpdatedMillis = clock.millis();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        adjust(latencyNanos, dropped, current);
+    }
+
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    private synchronized void adjust(long latencyNanos, boolean dropped, int inFlightAtRelease) {
+        // let the baseline drift up slowly so a permanently slower database is accepted eventually
+        long now = clock.millis();
+        double elapsedSeconds = (now - minLatencyUpdatedMillis) / 1000.0;
+        minLatencyUpdatedMillis = now;
+        minLatencyNanos = Math.min(minLatencyNanos * Math.pow(MIN_LATENCY_DRIFT_PER_SECOND, elapsedSeconds), latencyNanos);
+        double newLimit = limit;
+        if (dropped || latencyNanos > minLatencyNanos * tolerance) {
+            newLimit = limit * BACKOFF_RATIO;
+        } else if (inFlightAtRelease * 2 >= limit) {
+            newLimit = limit + 1.0 / limit;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,66 @@
+package com.dmdev.resilience;
+
+import com.dmdev.exception.AdmissionRejectedException;
+import com.dmdev.exception.CircuitBreakerOpenException;
+import com.dmdev.exception.SubscriptionException;
+import com.dmdev.exception.ValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.function.Supplier;
+
+@Getter
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_CLASS = "23";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+
+    public <T> T execute(Supplier<T> databaseCall) {
+        if (!limiter.tryAcquire()) {
+            throw new AdmissionRejectedException("Database concurrency limit " + limiter.getLimit() + " reached");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            limiter.cancel();
+            throw new CircuitBreakerOpenException("Database circuit breaker is " + circuitBreaker.getState());
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            var result = databaseCall.get();
+            failed = false;
+            return result;
+        } catch (Throwable e) {
+            // business rule and constraint violations say nothing about database health
+            failed = !isCallerError(e);
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, failed);
+            if (failed) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    private static boolean isCallerError(Throwable e) {
+        if (e instanceof SubscriptionException || e instanceof ValidationException || e instanceof IllegalArgumentException) {
+            return true;
+        }
+        // e.g. the unique violation the key filter retry of SubscriptionService expects
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException
+                || cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                   && sqlException.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION_CLASS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
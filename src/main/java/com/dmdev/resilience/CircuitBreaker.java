@@ -0,0 +1,69 @@
+package com.dmdev.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder trips = new LongAdder();
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    public boolean tryAcquire() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            // only the caller that moves the breaker to HALF_OPEN gets to probe the database
+            case OPEN -> clock.millis() - openedAt >= openMillis
+                         && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            case HALF_OPEN -> false;
+        };
+    }
+
+    public void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() == State.HALF_OPEN) {
+            state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getTrips() {
+        return trips.sum();
+    }
+
+    private void open() {
+        openedAt = clock.millis();
+        if (state.getAndSet(State.OPEN) != State.OPEN) {
+            trips.increment();
+        }
+        consecutiveFailures.set(0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionRepository;
+import com.dmdev.entity.Subscription;
+import lombok.Setter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Deletes subscriptions that have been {@link com.dmdev.entity.Status#EXPIRED} for longer than
+ * {@link PurgeConfig#getRetention()}. A run walks the expired rows in {@code (expiration_date, id)}
+ * order in chunks of {@link PurgeConfig#getChunkSize()}; every chunk is one short autocommit delete
+ * that re-checks the status, so a subscription renewed in the meantime is kept. Between chunks the
+ * run sleeps to stay within {@link PurgeConfig#getMaxDutyCycle()}.
+ *
+ * <p>Purged rows are not published to listeners; {@link SubscriptionCounters} pick them up on
+ * their next reconciliation and near caches of other processes through the change log.
+ */
+public class ExpiredSubscriptionPurger implements AutoCloseable {
+
+    private final SubscriptionRepository subscriptionDao;
+    private final PurgeConfig config;
+    private final Clock clock;
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Called after every chunk with the progress of the current run.
+     */
+    @Setter
+    private volatile Consumer<Progress> progressListener = progress -> {
+    };
+
+    public ExpiredSubscriptionPurger(SubscriptionRepository subscriptionDao, PurgeConfig config, Clock clock) {
+        this.subscriptionDao = subscriptionDao;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs {@link #purge()} every {@code interval} on a daemon thread.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "expired-subscription-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Purges every subscription expired before now minus the retention and returns the progress
+     * of the run; the run stops early, with {@link Progress#completed()} false, when the purger is
+     * closed or the thread is interrupted.
+     */
+    public Progress purge() {
+        var expiredBefore = clock.instant().minus(config.getRetention());
+        long startNanos = System.nanoTime();
+        var progress = new Progress(expiredBefore, 0, 0, 0, null, Duration.ZERO, false);
+        Subscription after = null;
+        while (!closed && !Thread.currentThread().isInterrupted()) {
+            long chunkStartNanos = System.nanoTime();
+            var chunk = subscriptionDao.findExpired(expiredBefore, after, config.getChunkSize());
+            if (chunk.isEmpty()) {
+                progress = progress.complete(elapsedSince(startNanos));
+                break;
+            }
+            after = chunk.get(chunk.size() - 1);
+            int deleted = subscriptionDao.deleteExpired(ids(chunk), expiredBefore);
+            purged.add(deleted);
+            progress = progress.next(chunk.size(), deleted, after.getExpirationDate(), elapsedSince(startNanos));
+            progressListener.accept(progress);
+            if (chunk.size() < config.getChunkSize()) {
+                progress = progress.complete(progress.elapsed());
+                break;
+            }
+            pause(System.nanoTime() - chunkStartNanos);
+        }
+        runs.increment();
+        return progress;
+    }
+
+    public long getPurged() {
+        return purged.sum();
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void pause(long chunkNanos) {
+        double dutyCycle = config.getMaxDutyCycle();
+        long pauseNanos = Math.max(config.getMinPause().toNanos(), (long) (chunkNanos * (1 - dutyCycle) / dutyCycle));
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            // rows deleted so far stay deleted, the next run continues with the rest
+        }
+    }
+
+    private static List<Integer> ids(List<Subscription> subscriptions) {
+        List<Integer> ids = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions) {
+            ids.add(subscription.getId());
+        }
+        return ids;
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Progress of one run: {@code scanned} expired rows read, {@code purged} of them deleted
+     * (the rest were renewed or deleted concurrently), {@code reached} is the expiration date of
+     * the last row read.
+     */
+    public record Progress(Instant expiredBefore, int chunks, long scanned, long purged, Instant reached,
+                           Duration elapsed, boolean completed) {
+
+        private Progress next(int chunkScanned, int chunkPurged, Instant chunkReached, Duration now) {
+            return new Progress(expiredBefore, chunks + 1, scanned + chunkScanned, purged + chunkPurged,
+                    chunkReached, now, false);
+        }
+
+        private Progress complete(Duration now) {
+            return new Progress(expiredBefore, chunks, scanned, purged, reached, now, true);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionRepository;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.event.SubscriptionListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ids of the {@link Status#ACTIVE} subscriptions expiring within {@code horizon}, bucketed by the
+ * hour of their expiration date, for questions like "which subscriptions expire in the next
+ * 24 hours". Buckets are plain {@code int[]} and an open-addressing id-to-bucket map moves renewed
+ * subscriptions between them, about 20 bytes per indexed subscription.
+ *
+ * <p>Registered as a listener of {@link SubscriptionService}, the index follows its writes.
+ * {@link #rebuild()} loads the horizon starting at the current hour with one range query; it runs
+ * periodically once {@link #start(Duration)} is called, which also moves the horizon forward.
+ * Parts of a query beyond the horizon are answered by the database.
+ *
+ * <p>The index is eventually consistent. Listeners run after commit on the writing threads, so two
+ * concurrent writes of one subscription may reach {@link #onChange} in the reverse of their commit
+ * order, and rows carry neither a version nor a monotonic expiration date to tell the older write
+ * apart. Such a subscription stays in the bucket of the older write until the next rebuild, that is
+ * for at most one rebuild interval after {@link #start(Duration)} and until the next explicit
+ * {@link #rebuild()} otherwise.
+ */
+public class ExpiringSoonIndex implements SubscriptionListener, AutoCloseable {
+
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final SubscriptionRepository subscriptionDao;
+    private final int hours;
+    private final Clock clock;
+    private final LongAdder fallbacks = new LongAdder();
+    private final Object rebuildLock = new Object();
+    private Buckets buckets;
+    // writes seen while a rebuild reads the database, replayed onto the rebuilt buckets
+    private List<Subscription> pendingWrites;
+    private ScheduledExecutorService rebuilder;
+
+    public ExpiringSoonIndex(SubscriptionRepository subscriptionDao, Duration horizon, Clock clock) {
+        if (horizon.toMillis() < HOUR_MILLIS) {
+            throw new IllegalArgumentException("horizon must be at least one hour: " + horizon);
+        }
+        this.subscriptionDao = subscriptionDao;
+        this.hours = (int) (horizon.toMillis() / HOUR_MILLIS);
+        this.clock = clock;
+        this.buckets = new Buckets(hourOf(clock.instant()), hours);
+    }
+
+    /**
+     * Rebuilds the index now and then every {@code interval} on a daemon thread.
+     */
+    public synchronized void start(Duration interval) {
+        rebuild();
+        if (rebuilder != null) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "expiring-soon-index-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = interval.toNanos();
+        rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long firstHour = hourOf(clock.instant());
+            synchronized (this) {
+                pendingWrites = new ArrayList<>();
+            }
+            var rebuilt = new Buckets(firstHour, hours);
+            try {
+                subscriptionDao.findByExpirationDateBetween(Instant.ofEpochMilli(firstHour * HOUR_MILLIS),
+                                Instant.ofEpochMilli((firstHour + hours) * HOUR_MILLIS))
+                        .forEach(rebuilt::apply);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingWrites = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pendingWrites.forEach(rebuilt::apply);
+                pendingWrites = null;
+                buckets = rebuilt;
+            }
+        }
+    }
+
+    /**
+     * Moves the subscription to the bucket of this write. Writes are applied in the order they
+     * arrive, which for concurrent writes of one row need not be their commit order.
+     */
+    @Override
+    public synchronized void onChange(Subscription subscription, Status oldStatus) {
+        buckets.apply(subscription);
+        if (pendingWrites != null) {
+            pendingWrites.add(subscription);
+        }
+    }
+
+    /**
+     * Returns the ids of the active subscriptions expiring within {@code window} from now,
+     * at the one-hour resolution of the index.
+     */
+    public int[] findExpiringWithin(Duration window) {
+        var now = clock.instant();
+        return findExpiringBetween(now, now.plus(window));
+    }
+
+    /**
+     * Returns the ids of the active subscriptions whose expiration hour overlaps {@code [from, to)}:
+     * {@code from} is truncated and {@code to} rounded up to whole hours. Hours outside the horizon
+     * are read from the database.
+     */
+    public int[] findExpiringBetween(Instant from, Instant to) {
+        long fromHour = hourOf(from);
+        long toHour = hourOf(to.plusMillis(HOUR_MILLIS - 1));
+        int[] ids;
+        long firstHour;
+        long endHour;
+        synchronized (this) {
+            firstHour = buckets.firstHour;
+            endHour = firstHour + hours;
+            ids = buckets.collect(Math.max(fromHour, firstHour), Math.min(toHour, endHour));
+        }
+        if (fromHour < firstHour) {
+            ids = concat(ids, findInDatabase(fromHour, Math.min(toHour, firstHour)));
+        }
+        if (toHour > endHour) {
+            ids = concat(ids, findInDatabase(Math.max(fromHour, endHour), toHour));
+        }
+        return ids;
+    }
+
+    public synchronized int size() {
+        return buckets.size;
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+            rebuilder = null;
+        }
+    }
+
+    private int[] findInDatabase(long fromHour, long toHour) {
+        fallbacks.increment();
+        return subscriptionDao.findByExpirationDateBetween(
+                        Instant.ofEpochMilli(fromHour * HOUR_MILLIS), Instant.ofEpochMilli(toHour * HOUR_MILLIS)).stream()
+                .filter(subscription -> subscription.getStatus() == Status.ACTIVE)
+                .mapToInt(Subscription::getId)
+                .toArray();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // the index keeps following writes, the next rebuild moves the horizon
+        }
+    }
+
+    private static long hourOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), HOUR_MILLIS);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] ids = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, ids, first.length, second.length);
+        return ids;
+    }
+
+    private static final class Buckets {
+
+        private static final int INITIAL_BUCKET_CAPACITY = 8;
+
+        private final long firstHour;
+        private final int[][] ids;
+        private final int[] sizes;
+        private final IntIntMap bucketById = new IntIntMap();
+        private int size;
+
+        private Buckets(long firstHour, int hours) {
+            this.firstHour = firstHour;
+            this.ids = new int[hours][];
+            this.sizes = new int[hours];
+        }
+
+        private void apply(Subscription subscription) {
+            int id = subscription.getId();
+            int bucket = subscription.getStatus() == Status.ACTIVE
+                    ? bucketOf(subscription.getExpirationDate())
+                    : IntIntMap.MISSING;
+            int current = bucketById.get(id);
+            if (current == bucket) {
+                return;
+            }
+            if (current != IntIntMap.MISSING) {
+                remove(current, id);
+                bucketById.remove(id);
+            }
+            if (bucket != IntIntMap.MISSING) {
+                add(bucket, id);
+                bucketById.put(id, bucket);
+            }
+        }
+
+        private int bucketOf(Instant expirationDate) {
+            long offset = hourOf(expirationDate) - firstHour;
+            return offset >= 0 && offset < ids.length ? (int) offset : IntIntMap.MISSING;
+        }
+
+        private void add(int bucket, int id) {
+            var bucketIds = ids[bucket];
+            if (bucketIds == null) {
+                bucketIds = ids[bucket] = new int[INITIAL_BUCKET_CAPACITY];
+            } else if (sizes[bucket] == bucketIds.length) {
+                bucketIds = ids[bucket] = Arrays.copyOf(bucketIds, bucketIds.length * 2);
+            }
+            bucketIds[sizes[bucket]++] = id;
+            size++;
+        }
+
+        private void remove(int bucket, int id) {
+            var bucketIds = ids[bucket];
+            int last = --sizes[bucket];
+            for (int i = 0; i <= last; i++) {
+                if (bucketIds[i] == id) {
+                    bucketIds[i] = bucketIds[last];
+                    break;
+                }
+            }
+            size--;
+        }
+
+        private int[] collect(long fromHour, long toHour) {
+            int total = 0;
+            for (long hour = fromHour; hour < toHour; hour++) {
+                total += sizes[(int) (hour - firstHour)];
+            }
+            int[] collected = new int[total];
+            int position = 0;
+            for (long hour = fromHour; hour < toHour; hour++) {
+                int bucket = (int) (hour - firstHour);
+                if (sizes[bucket] > 0) {
+                    System.arraycopy(ids[bucket], 0, collected, position, sizes[bucket]);
+                    position += sizes[bucket];
+                }
+            }
+            return collected;
+        }
+    }
+
+    /**
+     * Open-addressing map from positive int keys to non-negative int values with linear probing
+     * and backward-shift deletion, so it needs neither boxing nor tombstones.
+     */
+    private static final class IntIntMap {
+
+        private static final int MISSING = -1;
+        private static final int EMPTY = 0;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return MISSING;
+        }
+
+        private void put(int key, int value) {
+            if (key <= EMPTY) {
+                throw new IllegalArgumentException("keys must be positive: " + key);
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        private void remove(int key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != key) {
+                if (keys[slot] == EMPTY) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // shift back the following keys of the run that would no longer be reachable
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = slot(keys[next], mask);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(int key, int mask) {
+            return (key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9) & mask;
+        }
+    }
+}
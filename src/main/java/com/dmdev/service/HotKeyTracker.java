@@ -0,0 +1,184 @@
+package com.dmdev.service;
+
+import com.dmdev.util.CountMinSketch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming heavy hitters among the users and subscriptions that {@link SubscriptionService}
+ * works on: every operation is counted in a {@link CountMinSketch} and the keys with the highest
+ * estimates are kept in a bounded min-heap, so memory does not grow with the number of users.
+ * {@link #decay()} halves all counts; run every half-life by {@link #start(Duration)}, it turns them
+ * into exponentially decayed request rates and lets keys that cooled down leave the top.
+ *
+ * <p>The hot path is a few atomic increments; the heap lock is only taken by keys whose estimate
+ * beats the smallest one in a full heap. Decay runs on a background thread: the sketch is halved
+ * counter by counter without a lock and only the {@code topK} heap entries under it.
+ */
+public class HotKeyTracker implements AutoCloseable {
+
+    private final Keys users;
+    private final Keys subscriptions;
+    private ScheduledExecutorService decayer;
+
+    public HotKeyTracker(int topK, int width, int depth) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive: " + topK);
+        }
+        this.users = new Keys(topK, width, depth);
+        this.subscriptions = new Keys(topK, width, depth);
+    }
+
+    /**
+     * Halves all counts every {@code halfLife} on a daemon thread.
+     */
+    public synchronized void start(Duration halfLife) {
+        if (decayer != null) {
+            return;
+        }
+        decayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "hot-key-decay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long halfLifeNanos = halfLife.toNanos();
+        decayer.scheduleWithFixedDelay(this::decay, halfLifeNanos, halfLifeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUser(Integer userId) {
+        if (userId != null) {
+            users.record(userId);
+        }
+    }
+
+    public void recordSubscription(Integer subscriptionId) {
+        if (subscriptionId != null) {
+            subscriptions.record(subscriptionId);
+        }
+    }
+
+    /**
+     * Returns the hottest users, hottest first.
+     */
+    public List<HotKey> getTopUsers() {
+        return users.top();
+    }
+
+    /**
+     * Returns the hottest subscriptions, hottest first.
+     */
+    public List<HotKey> getTopSubscriptions() {
+        return subscriptions.top();
+    }
+
+    public long estimateUser(int userId) {
+        return users.sketch.estimate(userId);
+    }
+
+    public long estimateSubscription(int subscriptionId) {
+        return subscriptions.sketch.estimate(subscriptionId);
+    }
+
+    public void decay() {
+        users.halve();
+        subscriptions.halve();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (decayer != null) {
+            decayer.shutdownNow();
+            decayer = null;
+        }
+    }
+
+    public record HotKey(int key, long count) {
+    }
+
+    private static final class Keys {
+
+        private static final Comparator<Entry> BY_COUNT = Comparator.comparingLong(entry -> entry.count);
+
+        private final int topK;
+        private final CountMinSketch sketch;
+        private final PriorityQueue<Entry> heap;
+        private final Map<Integer, Entry> entries;
+        // smallest count in the heap once it is full, read without the lock
+        private volatile long threshold;
+
+        private Keys(int topK, int width, int depth) {
+            this.topK = topK;
+            this.sketch = new CountMinSketch(width, depth);
+            this.heap = new PriorityQueue<>(topK, BY_COUNT);
+            this.entries = new HashMap<>(topK * 2);
+        }
+
+        private void record(int key) {
+            long estimate = sketch.add(key);
+            if (estimate > threshold) {
+                offer(key, estimate);
+            }
+        }
+
+        private synchronized void offer(int key, long estimate) {
+            var entry = entries.get(key);
+            if (entry != null) {
+                if (estimate > entry.count) {
+                    heap.remove(entry);
+                    entry.count = estimate;
+                    heap.add(entry);
+                }
+            } else if (heap.size() < topK) {
+                entry = new Entry(key, estimate);
+                entries.put(key, entry);
+                heap.add(entry);
+            } else if (estimate > heap.peek().count) {
+                entries.remove(heap.poll().key);
+                entry = new Entry(key, estimate);
+                entries.put(key, entry);
+                heap.add(entry);
+            }
+            threshold = heap.size() < topK ? 0 : heap.peek().count;
+        }
+
+        private void halve() {
+            sketch.halve();
+            synchronized (this) {
+                // halving keeps the heap order, no re-heapify needed
+                for (Entry entry : heap) {
+                    entry.count >>>= 1;
+                }
+                threshold = heap.size() < topK ? 0 : heap.peek().count;
+            }
+        }
+
+        private synchronized List<HotKey> top() {
+            List<HotKey> top = new ArrayList<>(heap.size());
+            for (Entry entry : heap) {
+                top.add(new HotKey(entry.key, entry.count));
+            }
+            top.sort(Comparator.comparingLong(HotKey::count).reversed().thenComparingInt(HotKey::key));
+            return top;
+        }
+    }
+
+    private static final class Entry {
+
+        private final int key;
+        private long count;
+
+        private Entry(int key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.dmdev.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class PurgeConfig {
+
+    /**
+     * Subscriptions are purged once they have been expired for longer than this.
+     */
+    @Builder.Default
+    Duration retention = Duration.ofDays(90);
+    /**
+     * Rows deleted per statement, which bounds how many row locks one chunk holds.
+     */
+    @Builder.Default
+    int chunkSize = 500;
+    /**
+     * Share of wall-clock time the purge may spend in the database: after a chunk that took
+     * {@code t} it sleeps {@code t * (1 - maxDutyCycle) / maxDutyCycle}, but at least {@link #minPause}.
+     */
+    @Builder.Default
+    double maxDutyCycle = 0.2;
+    @Builder.Default
+    Duration minPause = Duration.ofMillis(10);
+}
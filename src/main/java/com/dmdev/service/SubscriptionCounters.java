@@ -0,0 +1,129 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionRepository;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.event.SubscriptionListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of subscriptions per provider and status, kept up to date from the transitions published
+ * by {@link SubscriptionService} so that reads never touch the database.
+ * Each counter is a base taken from an aggregate query plus a striped delta of the transitions
+ * seen since. {@link #reconcile()} re-bases the counters on a fresh aggregate to correct drift
+ * from writes that bypass the service; transitions concurrent with the query may be counted
+ * twice or not at all until the next reconciliation.
+ */
+public class SubscriptionCounters implements SubscriptionListener, AutoCloseable {
+
+    private static final Provider[] PROVIDERS = Provider.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final SubscriptionRepository subscriptionDao;
+    private final LongAdder[] deltas = new LongAdder[PROVIDERS.length * STATUSES.length];
+    private final AtomicLongArray bases = new AtomicLongArray(deltas.length);
+    private final LongAdder reconciliations = new LongAdder();
+    private ScheduledExecutorService reconciler;
+
+    public SubscriptionCounters(SubscriptionRepository subscriptionDao) {
+        this.subscriptionDao = subscriptionDao;
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Seeds the counters from one aggregate query and re-bases them every {@code interval}.
+     */
+    public synchronized void start(Duration interval) {
+        reconcile();
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-counters-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = interval.toNanos();
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onChange(Subscription subscription, Status oldStatus) {
+        if (oldStatus == subscription.getStatus()) {
+            return;
+        }
+        if (oldStatus != null) {
+            deltas[index(subscription.getProvider(), oldStatus)].decrement();
+        }
+        deltas[index(subscription.getProvider(), subscription.getStatus())].increment();
+    }
+
+    public long get(Provider provider, Status status) {
+        int index = index(provider, status);
+        return bases.get(index) + deltas[index].sum();
+    }
+
+    public Map<Provider, Map<Status, Long>> snapshot() {
+        Map<Provider, Map<Status, Long>> counts = new EnumMap<>(Provider.class);
+        for (Provider provider : PROVIDERS) {
+            Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+            for (Status status : STATUSES) {
+                byStatus.put(status, get(provider, status));
+            }
+            counts.put(provider, byStatus);
+        }
+        return counts;
+    }
+
+    public synchronized void reconcile() {
+        long[] seenBefore = new long[deltas.length];
+        for (int i = 0; i < deltas.length; i++) {
+            seenBefore[i] = deltas[i].sum();
+        }
+        var counts = subscriptionDao.countByProviderAndStatus();
+        for (Provider provider : PROVIDERS) {
+            var byStatus = counts.getOrDefault(provider, Map.of());
+            for (Status status : STATUSES) {
+                int index = index(provider, status);
+                // the aggregate already contains the transitions seen before it ran
+                bases.set(index, byStatus.getOrDefault(status, 0L) - seenBefore[index]);
+            }
+        }
+        reconciliations.increment();
+    }
+
+    public long getReconciliations() {
+        return reconciliations.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            // the counters keep counting transitions, the next reconciliation corrects them
+        }
+    }
+
+    private static int index(Provider provider, Status status) {
+        return provider.ordinal() * STATUSES.length + status.ordinal();
+    }
+}
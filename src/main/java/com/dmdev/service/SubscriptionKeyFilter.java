@@ -0,0 +1,50 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.util.ScalableBloomFilter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which (user_id, name) pairs may exist so that first-time upserts skip the lookup.
+ * The filter only learns about rows loaded by {@link #load} or written through this process, so
+ * "absent" is a hint: {@link SubscriptionService} inserts right away and, when the unique key says
+ * the row exists after all, repeats the upsert with the lookup.
+ */
+public class SubscriptionKeyFilter {
+
+    private final ScalableBloomFilter bloomFilter;
+    private final LongAdder skippedLookups = new LongAdder();
+    private final LongAdder performedLookups = new LongAdder();
+
+    public SubscriptionKeyFilter(int expectedKeys, double falsePositiveRate) {
+        this.bloomFilter = new ScalableBloomFilter(expectedKeys, falsePositiveRate);
+    }
+
+    public static SubscriptionKeyFilter load(SubscriptionDao subscriptionDao, int expectedKeys, double falsePositiveRate) {
+        var filter = new SubscriptionKeyFilter(expectedKeys, falsePositiveRate);
+        subscriptionDao.scanKeys(filter::add);
+        return filter;
+    }
+
+    public boolean mightExist(Integer userId, String name) {
+        if (bloomFilter.mightContain(ScalableBloomFilter.hash(userId, name))) {
+            performedLookups.increment();
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    public void add(Integer userId, String name) {
+        bloomFilter.add(ScalableBloomFilter.hash(userId, name));
+    }
+
+    public long getSkippedLookups() {
+        return skippedLookups.sum();
+    }
+
+    public long getPerformedLookups() {
+        return performedLookups.sum();
+    }
+}
@@ -1,46 +1,270 @@
 package com.dmdev.service;
 
-import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dao.SubscriptionRepository;
 import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.event.SubscriptionListener;
+import com.dmdev.exception.DeadlineExceededException;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.resilience.AdmissionController;
+import com.dmdev.util.Deadline;
+import com.dmdev.util.GroupCommitter;
+import com.dmdev.util.TransactionManager;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toSet;
 
 @RequiredArgsConstructor
 public class SubscriptionService {
 
-    private final SubscriptionDao subscriptionDao;
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final System.Logger LOG = System.getLogger(SubscriptionService.class.getName());
+
+    private final SubscriptionRepository subscriptionDao;
     private final CreateSubscriptionMapper createSubscriptionMapper;
     private final CreateSubscriptionValidator createSubscriptionValidator;
     private final Clock clock;
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, LongAdder> deadlineOverruns = new ConcurrentHashMap<>();
+    @Setter
+    private UpsertDedupCache upsertDedupCache;
+    @Setter
+    private AdmissionController admissionController;
+    @Setter
+    private SubscriptionKeyFilter subscriptionKeyFilter;
+    @Setter
+    private HotKeyTracker hotKeyTracker;
+    private volatile GroupCommitter<CreateSubscriptionDto, Subscription> upsertGroupCommitter;
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SubscriptionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Opts into group commit: concurrent upserts arriving within {@code window}, up to
+     * {@code maxGroupSize} of them, are written with JDBC batches in one transaction.
+     * Upserts called inside an already running unit of work are never grouped.
+     */
+    public void enableGroupCommit(Duration window, int maxGroupSize) {
+        upsertGroupCommitter = new GroupCommitter<>(window, maxGroupSize,
+                dtos -> execute("upsert", () -> doUpsertGroup(dtos)),
+                this::upsertAlone);
+    }
+
+    public void disableGroupCommit() {
+        upsertGroupCommitter = null;
+    }
 
     public Subscription upsert(CreateSubscriptionDto dto) {
+        if (hotKeyTracker != null) {
+            hotKeyTracker.recordUser(dto.getUserId());
+        }
+        if (upsertDedupCache != null) {
+            var replayed = upsertDedupCache.get(dto);
+            if (replayed.isPresent()) {
+                return replayed.get();
+            }
+        }
+
         var validationResult = createSubscriptionValidator.validate(dto);
         if (validationResult.hasErrors()) {
             throw new ValidationException(validationResult.getErrors());
         }
 
-        Subscription subscription = subscriptionDao.findByUserId(dto.getUserId()).stream()
-                .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
-                .filter(existingSubscription -> existingSubscription.getProvider() == Provider.findByName(dto.getProvider()))
-                .findFirst()
+        var groupCommitter = upsertGroupCommitter;
+        if (groupCommitter != null && !TransactionManager.isActive()) {
+            return groupCommitter.submit(dto);
+        }
+        return upsertAlone(dto);
+    }
+
+    public void cancel(Integer subscriptionId) {
+        recordSubscription(subscriptionId);
+        execute("cancel", () -> {
+            doCancel(subscriptionId);
+            return null;
+        });
+    }
+
+    public void expire(Integer subscriptionId) {
+        recordSubscription(subscriptionId);
+        execute("expire", () -> {
+            doExpire(subscriptionId);
+            return null;
+        });
+    }
+
+    public Map<String, Long> getDeadlineOverruns() {
+        Map<String, Long> overruns = new TreeMap<>();
+        deadlineOverruns.forEach((operation, count) -> overruns.put(operation, count.sum()));
+        return overruns;
+    }
+
+    private <T> T execute(String operation, Supplier<T> action) {
+        Supplier<T> unitOfWork = () -> TransactionManager.inTransaction(action);
+        try {
+            Deadline.check(operation);
+            return admissionController == null
+                    ? unitOfWork.get()
+                    : admissionController.execute(unitOfWork);
+        } catch (Exception e) {
+            if (!Deadline.isExpired()) {
+                throw e;
+            }
+            deadlineOverruns.computeIfAbsent(operation, key -> new LongAdder()).increment();
+            if (e instanceof DeadlineExceededException) {
+                throw e;
+            }
+            throw new DeadlineExceededException("Deadline exceeded during " + operation, e);
+        }
+    }
+
+    /**
+     * A key filter answering "absent" is only a hint: it does not know rows written by other
+     * processes or by a concurrent call before it learned the key. Only an outermost unit of work
+     * takes the hint, so that a unique-key violation rolls back nothing but this upsert, which is
+     * then repeated with the lookup.
+     */
+    private Subscription upsertAlone(CreateSubscriptionDto dto) {
+        boolean useKeyFilter = subscriptionKeyFilter != null && !TransactionManager.isActive();
+        try {
+            return execute("upsert", () -> doUpsert(dto, useKeyFilter));
+        } catch (Exception e) {
+            if (!useKeyFilter || !isUniqueViolation(e)) {
+                throw e;
+            }
+            return execute("upsert", () -> doUpsert(dto, false));
+        }
+    }
+
+    private Subscription doUpsert(CreateSubscriptionDto dto, boolean useKeyFilter) {
+        Optional<Subscription> existing = !useKeyFilter || mightExist(dto)
+                ? findExisting(dto)
+                : Optional.empty();
+        Status oldStatus = existing.map(Subscription::getStatus).orElse(null);
+        Subscription subscription = existing
                 .map(existingSubscription -> existingSubscription
                         .setExpirationDate(dto.getExpirationDate())
                         .setStatus(Status.ACTIVE))
                 .orElseGet(() -> createSubscriptionMapper.map(dto));
 
-        return subscriptionDao.upsert(subscription);
+        var upserted = subscriptionDao.upsert(subscription);
+        afterUpsert(dto, upserted, oldStatus);
+        return upserted;
     }
 
-    public void cancel(Integer subscriptionId) {
+    private List<Subscription> doUpsertGroup(List<CreateSubscriptionDto> dtos) {
+        Set<Integer> userIds = dtos.stream()
+                .filter(this::mightExist)
+                .map(CreateSubscriptionDto::getUserId)
+                .collect(toSet());
+        Map<Integer, List<Subscription>> existingByUserId = subscriptionDao.findByUserIds(userIds).stream()
+                .collect(groupingBy(Subscription::getUserId));
+
+        List<Subscription> subscriptions = new ArrayList<>(dtos.size());
+        List<Status> oldStatuses = new ArrayList<>(dtos.size());
+        List<Subscription> inserts = new ArrayList<>();
+        List<Subscription> updates = new ArrayList<>();
+        Set<List<Object>> keys = new HashSet<>();
+        for (CreateSubscriptionDto dto : dtos) {
+            if (!keys.add(List.of(dto.getUserId(), dto.getName()))) {
+                // a repeated key has to see the write of its predecessor, it is upserted after the batches
+                subscriptions.add(null);
+                oldStatuses.add(null);
+                continue;
+            }
+            var existing = existingByUserId.getOrDefault(dto.getUserId(), List.of()).stream()
+                    .filter(existingSubscription -> matches(existingSubscription, dto))
+                    .findFirst();
+            oldStatuses.add(existing.map(Subscription::getStatus).orElse(null));
+            var subscription = existing
+                    .map(existingSubscription -> existingSubscription
+                            .setExpirationDate(dto.getExpirationDate())
+                            .setStatus(Status.ACTIVE))
+                    .orElseGet(() -> createSubscriptionMapper.map(dto));
+            (existing.isPresent() ? updates : inserts).add(subscription);
+            subscriptions.add(subscription);
+        }
+
+        subscriptionDao.updateAll(updates);
+        subscriptionDao.insertAll(inserts);
+
+        for (int i = 0; i < dtos.size(); i++) {
+            var subscription = subscriptions.get(i);
+            if (subscription == null) {
+                subscriptions.set(i, doUpsert(dtos.get(i), false));
+            } else {
+                afterUpsert(dtos.get(i), subscription, oldStatuses.get(i));
+            }
+        }
+        return subscriptions;
+    }
+
+    private void afterUpsert(CreateSubscriptionDto dto, Subscription upserted, Status oldStatus) {
+        recordSubscription(upserted.getId());
+        if (subscriptionKeyFilter != null) {
+            subscriptionKeyFilter.add(upserted.getUserId(), upserted.getName());
+        }
+        if (upsertDedupCache != null) {
+            TransactionManager.afterCommit(() -> upsertDedupCache.put(dto, upserted));
+        }
+        publish(upserted, oldStatus);
+    }
+
+    private boolean mightExist(CreateSubscriptionDto dto) {
+        return subscriptionKeyFilter == null || subscriptionKeyFilter.mightExist(dto.getUserId(), dto.getName());
+    }
+
+    private Optional<Subscription> findExisting(CreateSubscriptionDto dto) {
+        return subscriptionDao.findByUserId(dto.getUserId()).stream()
+                .filter(existingSubscription -> matches(existingSubscription, dto))
+                .findFirst();
+    }
+
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException
+                || cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(Subscription existingSubscription, CreateSubscriptionDto dto) {
+        return existingSubscription.getName().equals(dto.getName())
+               && existingSubscription.getProvider() == Provider.findByName(dto.getProvider());
+    }
+
+    private void doCancel(Integer subscriptionId) {
         var subscription = subscriptionDao.findById(subscriptionId)
                 .orElseThrow(IllegalArgumentException::new);
         if (subscription.getStatus() != Status.ACTIVE) {
@@ -48,16 +272,48 @@ public class SubscriptionService {
         }
         subscription.setStatus(Status.CANCELED);
         subscriptionDao.update(subscription);
+        invalidateReplays(subscriptionId);
+        publish(subscription, Status.ACTIVE);
     }
 
-    public void expire(Integer subscriptionId) {
+    private void doExpire(Integer subscriptionId) {
         var subscription = subscriptionDao.findById(subscriptionId)
                 .orElseThrow(IllegalArgumentException::new);
         if (subscription.getStatus() == Status.EXPIRED) {
             throw new SubscriptionException(String.format("Subscription %d has already expired", subscriptionId));
         }
+        var oldStatus = subscription.getStatus();
         subscription.setStatus(Status.EXPIRED);
         subscription.setExpirationDate(Instant.now(clock));
         subscriptionDao.update(subscription);
+        invalidateReplays(subscriptionId);
+        publish(subscription, oldStatus);
+    }
+
+    private void recordSubscription(Integer subscriptionId) {
+        if (hotKeyTracker != null) {
+            hotKeyTracker.recordSubscription(subscriptionId);
+        }
+    }
+
+    private void invalidateReplays(Integer subscriptionId) {
+        if (upsertDedupCache != null) {
+            upsertDedupCache.invalidate(subscriptionId);
+            // again once committed, an upsert that read the row before this write may have put it back
+            TransactionManager.afterCommit(() -> upsertDedupCache.invalidate(subscriptionId));
+        }
+    }
+
+    private void publish(Subscription subscription, Status oldStatus) {
+        TransactionManager.afterCommit(() -> {
+            for (SubscriptionListener listener : listeners) {
+                // the write is committed, a failing listener must neither skip the others nor fail the call
+                try {
+                    listener.onChange(subscription, oldStatus);
+                } catch (RuntimeException e) {
+                    LOG.log(System.Logger.Level.WARNING, "Subscription listener " + listener + " failed", e);
+                }
+            }
+        });
     }
 }
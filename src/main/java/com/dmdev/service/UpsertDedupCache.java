@@ -0,0 +1,147 @@
+package com.dmdev.service;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays the result of an identical upsert within a short window. {@link #invalidate} leaves a
+ * tombstone for the window, so an upsert that read the row before a cancel or expiry and reaches
+ * {@link #put} only after the invalidation cannot bring the old snapshot back.
+ */
+public class UpsertDedupCache {
+
+    // insertion order holds nodes of replaced entries until they reach the head, compact beyond this
+    private static final int MAX_STALE_NODES_FACTOR = 2;
+
+    private final int maxSize;
+    private final long windowMillis;
+    private final Clock clock;
+    private final Map<CreateSubscriptionDto, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, CreateSubscriptionDto> keysBySubscriptionId = new ConcurrentHashMap<>();
+    private final Queue<Node> insertionOrder = new ArrayDeque<>();
+    private final Map<Integer, Long> invalidatedUntil = new HashMap<>();
+    private final Queue<Tombstone> tombstones = new ArrayDeque<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UpsertDedupCache(int maxSize, Duration window, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    public Optional<Subscription> get(CreateSubscriptionDto dto) {
+        var entry = entries.get(dto);
+        if (entry == null || entry.expiresAt() <= clock.millis()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copyOf(entry.subscription()));
+    }
+
+    public synchronized void put(CreateSubscriptionDto dto, Subscription subscription) {
+        var now = clock.millis();
+        evict(now);
+        if (invalidatedUntil.containsKey(subscription.getId())) {
+            return;
+        }
+        var previousKey = keysBySubscriptionId.put(subscription.getId(), dto);
+        if (previousKey != null && !previousKey.equals(dto)) {
+            entries.remove(previousKey);
+        }
+        var entry = new Entry(copyOf(subscription), now + windowMillis);
+        entries.put(dto, entry);
+        insertionOrder.add(new Node(dto, entry));
+        evict(now);
+    }
+
+    public synchronized void invalidate(Integer subscriptionId) {
+        var key = keysBySubscriptionId.remove(subscriptionId);
+        if (key != null) {
+            entries.remove(key);
+        }
+        var now = clock.millis();
+        invalidatedUntil.put(subscriptionId, now + windowMillis);
+        tombstones.add(new Tombstone(subscriptionId, now + windowMillis));
+        evict(now);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void evict(long now) {
+        Node head;
+        while ((head = insertionOrder.peek()) != null
+               && (entries.size() > maxSize || head.entry().expiresAt() <= now || !isLive(head))) {
+            insertionOrder.poll();
+            // entries are records, compare by identity so a replaced node never removes its successor
+            if (isLive(head)) {
+                entries.remove(head.key());
+                keysBySubscriptionId.remove(head.entry().subscription().getId(), head.key());
+                evictions.increment();
+            }
+        }
+        if (insertionOrder.size() > MAX_STALE_NODES_FACTOR * maxSize) {
+            insertionOrder.removeIf(node -> !isLive(node));
+        }
+
+        Tombstone tombstone;
+        while ((tombstone = tombstones.peek()) != null
+               && (tombstones.size() > maxSize || tombstone.expiresAt() <= now)) {
+            tombstones.poll();
+            invalidatedUntil.remove(tombstone.subscriptionId(), tombstone.expiresAt());
+        }
+    }
+
+    private boolean isLive(Node node) {
+        return entries.get(node.key()) == node.entry();
+    }
+
+    private static Subscription copyOf(Subscription subscription) {
+        return Subscription.builder()
+                .id(subscription.getId())
+                .userId(subscription.getUserId())
+                .name(subscription.getName())
+                .provider(subscription.getProvider())
+                .expirationDate(subscription.getExpirationDate())
+                .status(subscription.getStatus())
+                .build();
+    }
+
+    private record Entry(Subscription subscription, long expiresAt) {
+    }
+
+    private record Node(CreateSubscriptionDto key, Entry entry) {
+    }
+
+    private record Tombstone(Integer subscriptionId, Long expiresAt) {
+    }
+}
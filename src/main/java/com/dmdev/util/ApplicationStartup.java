@@ -0,0 +1,134 @@
+package com.dmdev.util;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup phase to run before the process takes traffic, so that the first request does not pay
+ * for driver loading, connection setup, statement parsing and interpreted code:
+ * <ol>
+ *     <li>loads the driver and migrates the schema, see {@link ConnectionManager#init()};</li>
+ *     <li>opens {@code startup.prewarm-connections} pool connections in parallel and prepares
+ *     the {@link SubscriptionDao} statements on each of them, see
+ *     {@link SubscriptionDao#prepareStatements(Connection)};</li>
+ *     <li>runs {@code startup.warmup-iterations} read-only calls through the hot path so that
+ *     the JIT compiles it.</li>
+ * </ol>
+ */
+@UtilityClass
+public class ApplicationStartup {
+
+    private static final String PREWARM_CONNECTIONS_KEY = "startup.prewarm-connections";
+    private static final String WARMUP_ITERATIONS_KEY = "startup.warmup-iterations";
+    private static final int DEFAULT_PREWARM_CONNECTIONS = 4;
+    private static final int DEFAULT_WARMUP_ITERATIONS = 1000;
+    // ids and users that never exist, so the warm-up reads nothing and writes nothing
+    private static final int WARMUP_ID = -1;
+
+    public static Report start() {
+        return start(getInt(PREWARM_CONNECTIONS_KEY, DEFAULT_PREWARM_CONNECTIONS),
+                getInt(WARMUP_ITERATIONS_KEY, DEFAULT_WARMUP_ITERATIONS));
+    }
+
+    public static Report start(int prewarmConnections, int warmupIterations) {
+        long started = System.nanoTime();
+        ConnectionManager.init();
+        long initialized = System.nanoTime();
+        prewarmConnections(prewarmConnections);
+        long prewarmed = System.nanoTime();
+        warmUp(warmupIterations);
+        long warmedUp = System.nanoTime();
+        return new Report(
+                TimeUnit.NANOSECONDS.toMillis(initialized - started),
+                TimeUnit.NANOSECONDS.toMillis(prewarmed - initialized),
+                TimeUnit.NANOSECONDS.toMillis(warmedUp - prewarmed),
+                ConnectionManager.getIdleCount());
+    }
+
+    @SneakyThrows
+    private static void prewarmConnections(int count) {
+        if (count <= 0) {
+            return;
+        }
+        var executor = Executors.newFixedThreadPool(count);
+        List<Connection> connections = new ArrayList<>(count);
+        try {
+            List<Future<Connection>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit((Callable<Connection>) () -> {
+                    var connection = ConnectionManager.get();
+                    try {
+                        SubscriptionDao.getInstance().prepareStatements(connection);
+                    } catch (Exception e) {
+                        connection.close();
+                        throw e;
+                    }
+                    return connection;
+                }));
+            }
+            // wait for every future, a connection opened after another one failed must be closed too
+            Throwable failure = null;
+            for (Future<Connection> future : futures) {
+                try {
+                    connections.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
+            // all connections are held until here, otherwise the same one would be reused
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private static void warmUp(int iterations) {
+        var subscriptionDao = SubscriptionDao.getInstance();
+        var mapper = CreateSubscriptionMapper.getInstance();
+        var validator = CreateSubscriptionValidator.getInstance();
+        var dto = CreateSubscriptionDto.builder()
+                .userId(WARMUP_ID)
+                .name("warm-up")
+                .provider(Provider.APPLE.name())
+                .expirationDate(Instant.now().plusSeconds(60))
+                .build();
+        for (int i = 0; i < iterations; i++) {
+            validator.validate(dto);
+            mapper.map(dto);
+            subscriptionDao.findById(WARMUP_ID);
+            subscriptionDao.findByUserId(WARMUP_ID);
+        }
+    }
+
+    private static int getInt(String key, int defaultValue) {
+        var value = PropertiesUtil.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public record Report(long initMillis, long prewarmMillis, long warmupMillis, int idleConnections) {
+    }
+}
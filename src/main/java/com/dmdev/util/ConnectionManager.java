@@ -3,9 +3,24 @@ package com.dmdev.util;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 
+/**
+ * Hands out connections from a pool of idle ones. Closing a handed out connection returns it to
+ * the pool; when the pool is full it is closed for real, so the pool never blocks callers.
+ * The driver is loaded and the schema migrated on {@link #init()}, which {@link ApplicationStartup}
+ * calls before traffic arrives; otherwise the first {@link #get()} does it.
+ */
 @UtilityClass
 public class ConnectionManager {
 
@@ -13,9 +28,62 @@ public class ConnectionManager {
     private static final String USER_KEY = "db.user";
     private static final String PASSWORD_KEY = "db.password";
     private static final String DRIVER_KEY = "db.driver";
+    private static final String MIGRATE_ON_STARTUP_KEY = "db.schema.migrate-on-startup";
+    private static final String POOL_SIZE_KEY = "db.pool.size";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    // pgjdbc bounds the whole login with the first and the socket connect with the second
+    private static final List<String> CONNECT_TIMEOUT_PROPERTIES = List.of("loginTimeout", "connectTimeout");
 
-    static {
-        loadDriver();
+    private static final Object LOCK = new Object();
+    private static volatile boolean initialized;
+    private static boolean initializing;
+    private static BlockingQueue<Connection> idle;
+    private static volatile List<String> supportedConnectTimeoutProperties;
+
+    public static void init() {
+        if (initialized) {
+            return;
+        }
+        synchronized (LOCK) {
+            // the migration below opens connections itself and re-enters on this thread
+            if (initialized || initializing) {
+                return;
+            }
+            initializing = true;
+            try {
+                loadDriver();
+                int poolSize = getPoolSize();
+                idle = poolSize > 0 ? new ArrayBlockingQueue<>(poolSize) : new SynchronousQueue<>();
+                migrateSchema();
+                initialized = true;
+            } finally {
+                initializing = false;
+            }
+        }
+    }
+
+    public static Connection get() {
+        Deadline.check("acquiring a connection");
+        return TransactionManager.isActive()
+                ? TransactionManager.currentConnection()
+                : open();
+    }
+
+    /**
+     * Number of idle connections kept for reuse.
+     */
+    public static int getIdleCount() {
+        return idle == null ? 0 : idle.size();
+    }
+
+    @SneakyThrows
+    static Connection open() {
+        init();
+        var connection = idle.poll();
+        if (connection == null || connection.isClosed()) {
+            connection = openPhysical();
+        }
+        return pooled(connection);
     }
 
     @SneakyThrows
@@ -23,11 +91,95 @@ public class ConnectionManager {
         Class.forName(PropertiesUtil.get(DRIVER_KEY));
     }
 
-    @SneakyThrows
-    public static Connection get() {
-        return DriverManager.getConnection(
-                PropertiesUtil.get(URL_KEY),
-                PropertiesUtil.get(USER_KEY),
-                PropertiesUtil.get(PASSWORD_KEY));
+    private static void migrateSchema() {
+        if (Boolean.parseBoolean(PropertiesUtil.get(MIGRATE_ON_STARTUP_KEY))) {
+            SchemaInitializer.migrate();
+        }
+    }
+
+    private static Connection openPhysical() throws SQLException {
+        var url = PropertiesUtil.get(URL_KEY);
+        var info = new Properties();
+        setIfPresent(info, "user", PropertiesUtil.get(USER_KEY));
+        setIfPresent(info, "password", PropertiesUtil.get(PASSWORD_KEY));
+        if (Deadline.isSet()) {
+            // a hung connect must not outlive the deadline either
+            var seconds = String.valueOf(Deadline.remainingSeconds());
+            for (String property : getConnectTimeoutProperties(url)) {
+                info.setProperty(property, seconds);
+            }
+        }
+        return DriverManager.getConnection(url, info);
+    }
+
+    /**
+     * The connect timeout properties the driver of the url declares; drivers such as H2 reject
+     * settings they do not know, so only declared ones are passed.
+     */
+    private static List<String> getConnectTimeoutProperties(String url) throws SQLException {
+        var properties = supportedConnectTimeoutProperties;
+        if (properties == null) {
+            properties = Arrays.stream(DriverManager.getDriver(url).getPropertyInfo(url, new Properties()))
+                    .map(propertyInfo -> propertyInfo.name)
+                    .filter(CONNECT_TIMEOUT_PROPERTIES::contains)
+                    .toList();
+            supportedConnectTimeoutProperties = properties;
+        }
+        return properties;
+    }
+
+    private static void setIfPresent(Properties info, String key, String value) {
+        if (value != null) {
+            info.setProperty(key, value);
+        }
+    }
+
+    private static Connection pooled(Connection connection) {
+        boolean[] released = {false};
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionManager.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        if (!released[0]) {
+                            released[0] = true;
+                            release(connection);
+                        }
+                        return null;
+                    }
+                    if ("isClosed".equals(method.getName()) && released[0]) {
+                        return true;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static void release(Connection connection) throws SQLException {
+        if (connection.isClosed()) {
+            return;
+        }
+        if (!connection.getAutoCommit()) {
+            // an abandoned or failed transaction must not leak into the next borrower
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                // never reset auto-commit on a connection that could not roll back, it would commit
+                connection.close();
+                throw e;
+            }
+            connection.setAutoCommit(true);
+        }
+        if (!idle.offer(connection)) {
+            connection.close();
+        }
+    }
+
+    private static int getPoolSize() {
+        var size = PropertiesUtil.get(POOL_SIZE_KEY);
+        return size == null ? DEFAULT_POOL_SIZE : Integer.parseInt(size);
     }
 }
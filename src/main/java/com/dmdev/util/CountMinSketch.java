@@ -0,0 +1,86 @@
+package com.dmdev.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch (Cormode, Muthukrishnan) over int keys: {@code depth} rows of
+ * {@code width} counters, the estimate of a key is the smallest of its counters. It never
+ * underestimates and overestimates by at most {@code e / width} of the total count with
+ * probability {@code 1 - exp(-depth)}, in memory independent of the number of keys.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("expected width > 0 and depth > 0");
+        }
+        this.depth = depth;
+        // rounded up to a power of two so that a column is a mask instead of a division
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    /**
+     * Counts one occurrence of the key and returns its new estimate.
+     */
+    public long add(int key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    public long estimate(int key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter, so that older occurrences weigh half as much as newer ones.
+     * Increments racing with it may be halved or not.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * width + ((h1 + row * h2) & mask);
+    }
+
+    private static long hash(int key) {
+        // murmur3 finalizer
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
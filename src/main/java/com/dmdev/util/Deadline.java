@@ -0,0 +1,127 @@
+package com.dmdev.util;
+
+import com.dmdev.exception.DeadlineExceededException;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread time budget for a call. {@link ConnectionManager} refuses to hand out connections
+ * once it is spent, and {@link #guard(Statement)} turns the remaining budget into a JDBC query
+ * timeout plus a cancel of the statement when the budget runs out.
+ */
+@UtilityClass
+public class Deadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+    private static final StatementGuard NO_GUARD = () -> {
+    };
+    private static final ScheduledThreadPoolExecutor CANCELLER = createCanceller();
+
+    public static <T> T within(Duration budget, Supplier<T> action) {
+        var outer = DEADLINE_NANOS.get();
+        long deadline = System.nanoTime() + budget.toNanos();
+        // an inner call can only shorten the budget of the outer one
+        DEADLINE_NANOS.set(outer == null || deadline - outer < 0 ? deadline : outer);
+        try {
+            return action.get();
+        } catch (Exception e) {
+            if (isExpired() && !(e instanceof DeadlineExceededException)) {
+                throw new DeadlineExceededException("Deadline of " + budget.toMillis() + " ms exceeded", e);
+            }
+            throw e;
+        } finally {
+            if (outer == null) {
+                DEADLINE_NANOS.remove();
+            } else {
+                DEADLINE_NANOS.set(outer);
+            }
+        }
+    }
+
+    public static void within(Duration budget, Runnable action) {
+        within(budget, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    public static boolean isExpired() {
+        return isSet() && remainingNanos() <= 0;
+    }
+
+    public static long remainingNanos() {
+        var deadline = DEADLINE_NANOS.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    /**
+     * Remaining budget rounded up to whole seconds, the unit of JDBC timeouts.
+     */
+    public static int remainingSeconds() {
+        return toTimeoutSeconds(remainingNanos());
+    }
+
+    public static void check(String operation) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded before " + operation);
+        }
+    }
+
+    @SneakyThrows
+    public static StatementGuard guard(Statement statement) {
+        if (!isSet()) {
+            return NO_GUARD;
+        }
+        long remaining = remainingNanos();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("Deadline exceeded before executing statement");
+        }
+        statement.setQueryTimeout(toTimeoutSeconds(remaining));
+        ScheduledFuture<?> cancel = CANCELLER.schedule(() -> cancelQuietly(statement), remaining, TimeUnit.NANOSECONDS);
+        return () -> cancel.cancel(false);
+    }
+
+    private static int toTimeoutSeconds(long nanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos) + (nanos % TimeUnit.SECONDS.toNanos(1) > 0 ? 1 : 0));
+        return (int) Math.min(Integer.MAX_VALUE, seconds);
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // the statement has already completed or been closed
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createCanceller() {
+        var executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("deadline-canceller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    @FunctionalInterface
+    public interface StatementGuard extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
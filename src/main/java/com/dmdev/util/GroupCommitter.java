@@ -0,0 +1,137 @@
+package com.dmdev.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent calls into groups that are written as one unit of work.
+ * The first caller of a group becomes its leader: it waits until the group is full or the window
+ * has passed, closes the group and runs the group action on behalf of every member. Followers
+ * block until the leader is done and pick up their own result. If the group action fails with
+ * anything, including an undeclared checked exception, every member repeats its call alone on its
+ * own thread, so each caller gets its own result or the real cause of its own failure.
+ */
+public class GroupCommitter<I, O> {
+
+    private final long windowNanos;
+    private final int maxGroupSize;
+    private final Function<List<I>, List<O>> groupAction;
+    private final Function<I, O> singleAction;
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder grouped = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private Group<I, O> open;
+
+    public GroupCommitter(Duration window, int maxGroupSize,
+                          Function<List<I>, List<O>> groupAction, Function<I, O> singleAction) {
+        if (maxGroupSize <= 0) {
+            throw new IllegalArgumentException("maxGroupSize must be positive: " + maxGroupSize);
+        }
+        this.windowNanos = window.toNanos();
+        this.maxGroupSize = maxGroupSize;
+        this.groupAction = groupAction;
+        this.singleAction = singleAction;
+    }
+
+    public O submit(I item) {
+        Group<I, O> group;
+        int slot;
+        boolean leader;
+        synchronized (this) {
+            leader = open == null;
+            if (leader) {
+                open = new Group<>();
+            }
+            group = open;
+            slot = group.items.size();
+            group.items.add(item);
+            if (group.items.size() >= maxGroupSize) {
+                open = null;
+                group.full.countDown();
+            }
+        }
+
+        if (leader) {
+            lead(group);
+        }
+        awaitUninterruptibly(group.done);
+        if (group.failure != null) {
+            fallbacks.increment();
+            return singleAction.apply(item);
+        }
+        return group.results.get(slot);
+    }
+
+    public long getGroups() {
+        return groups.sum();
+    }
+
+    public long getGrouped() {
+        return grouped.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    private void lead(Group<I, O> group) {
+        try {
+            group.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (open == group) {
+                open = null;
+            }
+        }
+
+        try {
+            var results = groupAction.apply(group.items);
+            if (results.size() != group.items.size()) {
+                throw new IllegalStateException("Group action returned " + results.size()
+                                                + " results for " + group.items.size() + " items");
+            }
+            group.results = results;
+        } catch (Throwable e) {
+            // DAO batches rethrow SQLException unchecked, a failure left uncaught here would reach
+            // the leader as another member's error and leave followers without results
+            group.failure = e;
+        } finally {
+            groups.increment();
+            grouped.add(group.items.size());
+            group.done.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                // the leader writes our item either way, the result has to be reported
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Group<I, O> {
+
+        private final List<I> items = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        // published to followers by the countdown of done
+        private List<O> results;
+        private Throwable failure;
+    }
+}
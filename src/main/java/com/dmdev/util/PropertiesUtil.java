@@ -22,6 +22,6 @@ public class PropertiesUtil {
     }
 
     public static String get(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
 }
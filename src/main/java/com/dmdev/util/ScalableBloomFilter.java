@@ -0,0 +1,140 @@
+package com.dmdev.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over 64-bit key hashes that grows by adding stages
+ * (Almeida et al., "Scalable Bloom Filters"). Every new stage doubles the capacity and halves
+ * the false positive rate, so the compound rate stays below twice the configured one.
+ */
+public class ScalableBloomFilter {
+
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int GROWTH_FACTOR = 2;
+
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expected initialCapacity > 0 and 0 < falsePositiveRate < 1");
+        }
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))};
+    }
+
+    public boolean mightContain(long hash) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(long hash) {
+        var current = stages;
+        var last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(current);
+        }
+        if (last.add(hash)) {
+            last.count.incrementAndGet();
+        }
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    public long getBitCount() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.bitCount;
+        }
+        return bits;
+    }
+
+    public static long hash(int userId, String name) {
+        // FNV-1a over the name, seeded with the user id, then the murmur3 finalizer
+        long hash = 0xcbf29ce484222325L ^ userId * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        var current = stages;
+        if (current != seen) {
+            return current[current.length - 1];
+        }
+        var last = current[current.length - 1];
+        var next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+        var grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (bits + 63) >>> 6));
+            this.bitCount = (long) words.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // returns true if at least one bit was newly set, i.e. the key was not present yet
+        private boolean add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                while (((value = words.get(word)) & mask) == 0) {
+                    if (words.compareAndSet(word, value, value | mask)) {
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            return changed;
+        }
+
+        private long index(int combinedHash) {
+            return (combinedHash & 0x7fffffffL) % bitCount;
+        }
+    }
+}
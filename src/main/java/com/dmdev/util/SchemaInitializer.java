@@ -0,0 +1,274 @@
+package com.dmdev.util;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+@UtilityClass
+public class SchemaInitializer {
+
+    private static final String PARTITION_KEY = "db.schema.partition-by-expiration";
+    private static final String PARTITION_MONTHS_KEY = "db.schema.partition-months";
+    private static final int DEFAULT_PARTITION_MONTHS = 24;
+
+    private static final String CREATE_VERSION_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version
+            (
+                version INT PRIMARY KEY ,
+                description VARCHAR(128) NOT NULL ,
+                applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+    private static final String GET_VERSIONS_SQL = "SELECT version FROM schema_version";
+    private static final String SAVE_VERSION_SQL = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date TIMESTAMP NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                UNIQUE (user_id, name)
+            )
+            """;
+    private static final String CREATE_PARTITIONED_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT GENERATED BY DEFAULT AS IDENTITY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date TIMESTAMP NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                PRIMARY KEY (id, expiration_date)
+            ) PARTITION BY RANGE (expiration_date)
+            """;
+    private static final String CREATE_DEFAULT_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS subscription_default PARTITION OF subscription DEFAULT";
+    private static final String CREATE_MONTH_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS subscription_%s PARTITION OF subscription FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('subscription')";
+    private static final String DEFAULT_PARTITION_HAS_ROWS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM subscription_default WHERE expiration_date >= '%s' AND expiration_date < '%s')";
+
+    // a partitioned table cannot have UNIQUE (user_id, name), a trigger keeps the keys in a plain table instead
+    private static final String CREATE_KEY_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription_key
+            (
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                PRIMARY KEY (user_id, name)
+            )
+            """;
+    private static final String FILL_KEY_TABLE_SQL =
+            "INSERT INTO subscription_key (user_id, name) SELECT user_id, name FROM subscription ON CONFLICT DO NOTHING";
+    private static final String CREATE_KEY_GUARD_FUNCTION_SQL = """
+            CREATE OR REPLACE FUNCTION subscription_key_guard() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND (OLD.user_id, OLD.name) IS DISTINCT FROM (NEW.user_id, NEW.name)) THEN
+                    DELETE FROM subscription_key WHERE user_id = OLD.user_id AND name = OLD.name;
+                END IF;
+                IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND (OLD.user_id, OLD.name) IS DISTINCT FROM (NEW.user_id, NEW.name)) THEN
+                    INSERT INTO subscription_key (user_id, name) VALUES (NEW.user_id, NEW.name);
+                END IF;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+    private static final String DROP_KEY_GUARD_TRIGGER_SQL = "DROP TRIGGER IF EXISTS subscription_key_guard ON subscription";
+    private static final String CREATE_KEY_GUARD_TRIGGER_SQL = """
+            CREATE TRIGGER subscription_key_guard AFTER INSERT OR UPDATE OR DELETE ON subscription
+                FOR EACH ROW EXECUTE FUNCTION subscription_key_guard()
+            """;
+
+    private static final String CREATE_STATUS_EXPIRATION_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS subscription_status_expiration_idx ON subscription (status, expiration_date)";
+    private static final String CREATE_USER_ID_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS subscription_user_id_idx ON subscription (user_id)";
+    private static final String CREATE_USER_ID_COVERING_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS subscription_user_id_idx ON subscription (user_id)
+                INCLUDE (name, provider, expiration_date, status)
+            """;
+
+    private static final String CREATE_CHANGE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription_change
+            (
+                seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY ,
+                subscription_id INT NOT NULL ,
+                user_id INT ,
+                changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+    private static final String CREATE_CHANGED_AT_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS subscription_change_changed_at_idx ON subscription_change (changed_at)";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create subscription table", SchemaInitializer::createTable),
+            new Migration(2, "add status/expiration and user_id indexes", SchemaInitializer::createIndexes),
+            new Migration(3, "create subscription_change table", SchemaInitializer::createChangeTable),
+            new Migration(4, "enforce unique (user_id, name) on a partitioned table", SchemaInitializer::guardPartitionedKey)
+    );
+
+    @SneakyThrows
+    public static void migrate() {
+        try (var connection = ConnectionManager.open()) {
+            migrate(connection);
+        }
+    }
+
+    public static void migrate(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_VERSION_TABLE_SQL);
+        }
+        var appliedVersions = getAppliedVersions(connection);
+        var postgres = isPostgres(connection);
+        for (Migration migration : MIGRATIONS) {
+            if (!appliedVersions.contains(migration.version())) {
+                apply(connection, migration, postgres);
+            }
+        }
+        if (postgres) {
+            maintainPartitions(connection);
+        }
+    }
+
+    /**
+     * Creates the monthly partitions from the current month up to {@code db.schema.partition-months}
+     * ahead; runs on every {@link #migrate()} and should also be called periodically (e.g. daily) by
+     * processes that stay up for long. Does nothing unless the table is partitioned. A month that
+     * already has rows in {@code subscription_default} is left there, because Postgres refuses to
+     * create a partition for rows the default partition holds; its number is returned.
+     */
+    public static int maintainPartitions(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            if (!isPartitioned(statement)) {
+                return 0;
+            }
+            int skipped = 0;
+            var month = YearMonth.now();
+            for (int i = 0; i < getPartitionMonths(); i++, month = month.plusMonths(1)) {
+                LocalDate from = month.atDay(1);
+                LocalDate to = month.plusMonths(1).atDay(1);
+                if (defaultPartitionHasRows(statement, from, to)) {
+                    skipped++;
+                    continue;
+                }
+                statement.execute(String.format(CREATE_MONTH_PARTITION_SQL,
+                        String.format("%04d_%02d", month.getYear(), month.getMonthValue()), from, to));
+            }
+            return skipped;
+        }
+    }
+
+    @SneakyThrows
+    public static int maintainPartitions() {
+        try (var connection = ConnectionManager.open()) {
+            return isPostgres(connection) ? maintainPartitions(connection) : 0;
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration, boolean postgres) throws SQLException {
+        var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement();
+             var preparedStatement = connection.prepareStatement(SAVE_VERSION_SQL)) {
+            migration.step().apply(statement, postgres);
+            preparedStatement.setObject(1, migration.version());
+            preparedStatement.setObject(2, migration.description());
+            preparedStatement.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static List<Integer> getAppliedVersions(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(GET_VERSIONS_SQL)) {
+            List<Integer> versions = new ArrayList<>();
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+            return versions;
+        }
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static void createTable(Statement statement, boolean postgres) throws SQLException {
+        if (!postgres || !Boolean.parseBoolean(PropertiesUtil.get(PARTITION_KEY))) {
+            statement.execute(CREATE_TABLE_SQL);
+            return;
+        }
+        // a partitioned table can only enforce uniqueness on keys containing the partition column,
+        // (user_id, name) is enforced through subscription_key by migration 4;
+        // the monthly partitions are created by maintainPartitions after the migrations
+        statement.execute(CREATE_PARTITIONED_TABLE_SQL);
+        statement.execute(CREATE_DEFAULT_PARTITION_SQL);
+    }
+
+    private static void createIndexes(Statement statement, boolean postgres) throws SQLException {
+        statement.execute(CREATE_STATUS_EXPIRATION_INDEX_SQL);
+        statement.execute(postgres ? CREATE_USER_ID_COVERING_INDEX_SQL : CREATE_USER_ID_INDEX_SQL);
+    }
+
+    private static void createChangeTable(Statement statement, boolean postgres) throws SQLException {
+        statement.execute(CREATE_CHANGE_TABLE_SQL);
+        statement.execute(CREATE_CHANGED_AT_INDEX_SQL);
+    }
+
+    private static void guardPartitionedKey(Statement statement, boolean postgres) throws SQLException {
+        if (!postgres || !isPartitioned(statement)) {
+            return;
+        }
+        statement.execute(CREATE_KEY_TABLE_SQL);
+        statement.execute(FILL_KEY_TABLE_SQL);
+        statement.execute(CREATE_KEY_GUARD_FUNCTION_SQL);
+        statement.execute(DROP_KEY_GUARD_TRIGGER_SQL);
+        statement.execute(CREATE_KEY_GUARD_TRIGGER_SQL);
+    }
+
+    private static boolean isPartitioned(Statement statement) throws SQLException {
+        try (var resultSet = statement.executeQuery(IS_PARTITIONED_SQL)) {
+            return resultSet.next() && resultSet.getInt(1) > 0;
+        }
+    }
+
+    private static boolean defaultPartitionHasRows(Statement statement, LocalDate from, LocalDate to)
+            throws SQLException {
+        try (var resultSet = statement.executeQuery(String.format(DEFAULT_PARTITION_HAS_ROWS_SQL, from, to))) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    private static int getPartitionMonths() {
+        var months = PropertiesUtil.get(PARTITION_MONTHS_KEY);
+        return months == null ? DEFAULT_PARTITION_MONTHS : Integer.parseInt(months);
+    }
+
+    private record Migration(int version, String description, MigrationStep step) {
+    }
+
+    @FunctionalInterface
+    private interface MigrationStep {
+
+        void apply(Statement statement, boolean postgres) throws SQLException;
+    }
+}
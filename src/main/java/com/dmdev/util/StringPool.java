@@ -0,0 +1,125 @@
+package com.dmdev.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of shared instances for low-cardinality strings. Every {@code capacity} lookups
+ * rejected by a full pool, the hit rate since the previous check is compared with
+ * {@code minHitRate}; when it falls short the pool disables itself and releases its entries, also
+ * in a process whose earlier traffic had a good hit rate.
+ */
+public class StringPool {
+
+    private static final String CAPACITY_KEY = "string-pool.capacity";
+    private static final String MIN_HIT_RATE_KEY = "string-pool.min-hit-rate";
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double DEFAULT_MIN_HIT_RATE = 0.5;
+    // object header and fields of the String plus the header of its backing byte[]
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private static final StringPool INSTANCE = new StringPool(
+            getInt(CAPACITY_KEY, DEFAULT_CAPACITY), getDouble(MIN_HIT_RATE_KEY, DEFAULT_MIN_HIT_RATE));
+
+    private final int capacity;
+    private final double minHitRate;
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder windowHits = new LongAdder();
+    private final LongAdder windowMisses = new LongAdder();
+    private final AtomicLong windowRejected = new AtomicLong();
+    // slots claimed before putIfAbsent, so racing misses cannot grow the pool past its capacity
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final LongAdder bytesSaved = new LongAdder();
+    private volatile boolean enabled = true;
+
+    public StringPool(int capacity, double minHitRate) {
+        this.capacity = capacity;
+        this.minHitRate = minHitRate;
+    }
+
+    public static StringPool getInstance() {
+        return INSTANCE;
+    }
+
+    public String intern(String value) {
+        if (value == null || !enabled) {
+            return value;
+        }
+        var pooled = pool.get(value);
+        if (pooled != null) {
+            hits.increment();
+            windowHits.increment();
+            if (pooled != value) {
+                bytesSaved.add(STRING_OVERHEAD_BYTES + value.length());
+            }
+            return pooled;
+        }
+        misses.increment();
+        windowMisses.increment();
+        if (reserved.incrementAndGet() <= capacity) {
+            var previous = pool.putIfAbsent(value, value);
+            if (previous == null) {
+                return value;
+            }
+            reserved.decrementAndGet();
+            return previous;
+        }
+        reserved.decrementAndGet();
+        if (windowRejected.incrementAndGet() == capacity) {
+            checkHitRate();
+        }
+        return value;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private void checkHitRate() {
+        long hitCount = windowHits.sumThenReset();
+        long total = hitCount + windowMisses.sumThenReset();
+        windowRejected.set(0);
+        if (total > 0 && (double) hitCount / total < minHitRate) {
+            // too many distinct values to pay off: stop interning and release the pool
+            enabled = false;
+            pool.clear();
+        }
+    }
+
+    private static int getInt(String key, int defaultValue) {
+        var value = PropertiesUtil.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double getDouble(String key, double defaultValue) {
+        var value = PropertiesUtil.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.dmdev.util;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Binds one connection to the current thread for the duration of a unit of work.
+ * {@link ConnectionManager#get()} hands out that connection while a transaction is active,
+ * so DAO methods join it without any change. Nested calls join the outermost transaction;
+ * an exception escaping a nested call rolls back the whole unit of work.
+ * After-commit callbacks run one by one; a failing callback is logged and neither stops the
+ * others nor reaches the caller, whose write is already committed.
+ */
+@UtilityClass
+public class TransactionManager {
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+    private static final System.Logger LOG = System.getLogger(TransactionManager.class.getName());
+
+    public static void inTransaction(Runnable action) {
+        inTransaction(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static <T> T inTransaction(Supplier<T> action) {
+        var current = CURRENT.get();
+        if (current != null) {
+            return joinTransaction(current, action);
+        }
+
+        var transaction = new Transaction();
+        CURRENT.set(transaction);
+        T result;
+        try {
+            result = action.get();
+            transaction.commit();
+        } catch (Throwable e) {
+            // DAO methods rethrow SQLException unchecked, so anything escaping must roll back
+            transaction.rollback(e);
+            throw e;
+        } finally {
+            CURRENT.remove();
+            transaction.close();
+        }
+        transaction.afterCommit.forEach(TransactionManager::runAfterCommit);
+        return result;
+    }
+
+    public static void afterCommit(Runnable callback) {
+        var current = CURRENT.get();
+        if (current == null) {
+            runAfterCommit(callback);
+        } else {
+            current.afterCommit.add(callback);
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static Connection currentConnection() {
+        return CURRENT.get().getConnection();
+    }
+
+    private static void runAfterCommit(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "After-commit callback failed", e);
+        }
+    }
+
+    private static <T> T joinTransaction(Transaction transaction, Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (Throwable e) {
+            transaction.rollbackOnly = true;
+            throw e;
+        }
+    }
+
+    private static class Transaction {
+
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private Connection connection;
+        private Connection boundConnection;
+        private boolean rollbackOnly;
+
+        @SneakyThrows
+        private Connection getConnection() {
+            if (connection == null) {
+                connection = ConnectionManager.open();
+                connection.setAutoCommit(false);
+                boundConnection = (Connection) Proxy.newProxyInstance(
+                        TransactionManager.class.getClassLoader(),
+                        new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if ("close".equals(method.getName())) {
+                                return null;
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                        });
+            }
+            return boundConnection;
+        }
+
+        @SneakyThrows
+        private void commit() {
+            if (rollbackOnly) {
+                throw new IllegalStateException("Transaction was marked rollback-only by a nested unit of work");
+            }
+            if (connection != null) {
+                connection.commit();
+            }
+        }
+
+        private void rollback(Throwable cause) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        private void close() {
+            if (connection == null) {
+                return;
+            }
+            try {
+                // the pool rolls back an uncommitted transaction before resetting auto-commit,
+                // resetting it here first would commit whatever a failed unit of work wrote
+                connection.close();
+            } catch (SQLException ignored) {
+                // the transaction outcome is already decided, a failed close must not hide it
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.dmdev.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditJournalTest {
+
+  private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replayReturnsTransitionsInAppendOrder() throws IOException {
+    try (var journal = new AuditJournal(directory, 16, DurabilityPolicy.EVERY_RECORD, Duration.ZERO, CLOCK)) {
+      journal.append(1, 10, null, Status.ACTIVE);
+      journal.append(1, 10, Status.ACTIVE, Status.CANCELED);
+      journal.append(1, 10, Status.CANCELED, Status.EXPIRED);
+      assertThat(journal.getSyncs()).isEqualTo(3);
+    }
+
+    List<AuditRecord> records = new ArrayList<>();
+    new AuditJournalReader(directory).replay(records::add);
+
+    assertThat(records).extracting(AuditRecord::newStatus)
+        .containsExactly(Status.ACTIVE, Status.CANCELED, Status.EXPIRED);
+    assertThat(records.get(0).oldStatus()).isNull();
+    assertThat(records.get(1)).isEqualTo(new AuditRecord(1, 1, 10, Status.ACTIVE, Status.CANCELED, NOW));
+  }
+
+  @Test
+  void listenerSkipsWritesThatKeepStatus() throws IOException {
+    try (var journal = new AuditJournal(directory, 16, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      journal.onChange(getSubscription(Status.ACTIVE), Status.ACTIVE);
+      journal.onChange(getSubscription(Status.CANCELED), Status.ACTIVE);
+
+      assertThat(journal.getAppended()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void segmentsRollOverWhenFull() throws IOException {
+    try (var journal = new AuditJournal(directory, 4, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      for (int i = 0; i < 10; i++) {
+        journal.append(i, 10, Status.ACTIVE, Status.CANCELED);
+      }
+    }
+
+    try (var files = Files.list(directory)) {
+      assertThat(files.count()).isEqualTo(3);
+    }
+    List<AuditRecord> records = new ArrayList<>();
+    new AuditJournalReader(directory).replay(records::add);
+    assertThat(records).extracting(AuditRecord::subscriptionId).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+  }
+
+  @Test
+  void reopenedJournalContinuesAfterLastRecord() throws IOException {
+    try (var journal = new AuditJournal(directory, 8, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      journal.append(1, 10, null, Status.ACTIVE);
+    }
+    try (var journal = new AuditJournal(directory, 8, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      journal.append(1, 10, Status.ACTIVE, Status.CANCELED);
+    }
+
+    List<AuditRecord> records = new ArrayList<>();
+    new AuditJournalReader(directory).replay(records::add);
+    assertThat(records).extracting(AuditRecord::sequence).containsExactly(0L, 1L);
+  }
+
+  @Test
+  void sequencesContinueWhenSegmentCapacityChanges() throws IOException {
+    try (var journal = new AuditJournal(directory, 2, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      for (int i = 0; i < 3; i++) {
+        journal.append(i, 10, Status.ACTIVE, Status.CANCELED);
+      }
+    }
+    try (var journal = new AuditJournal(directory, 8, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      assertThat(journal.append(3, 10, Status.ACTIVE, Status.CANCELED)).isEqualTo(3);
+      assertThat(journal.append(4, 10, Status.ACTIVE, Status.CANCELED)).isEqualTo(4);
+    }
+
+    List<AuditRecord> records = new ArrayList<>();
+    new AuditJournalReader(directory).replay(records::add);
+    assertThat(records).extracting(AuditRecord::sequence).containsExactly(0L, 1L, 2L, 3L, 4L);
+  }
+
+  @Test
+  void forceCoversEveryWriteCompletedBeforeIt() throws IOException {
+    var segment = JournalSegment.openForAppend(directory, 0, 0, 4);
+    long first = segment.write(segment.reserve(), 1, 10, null, Status.ACTIVE, NOW.toEpochMilli());
+    long second = segment.write(segment.reserve(), 2, 10, null, Status.ACTIVE, NOW.toEpochMilli());
+
+    assertThat(segment.forceUpTo(first)).isTrue();
+    assertThat(segment.forceUpTo(second)).isFalse();
+    assertThat(segment.force()).isFalse();
+    segment.write(segment.reserve(), 3, 10, null, Status.ACTIVE, NOW.toEpochMilli());
+    assertThat(segment.force()).isTrue();
+    segment.close();
+  }
+
+  @Test
+  void findSeesRecordsAppendedSinceEarlierCall() throws IOException {
+    var reader = new AuditJournalReader(directory);
+    try (var journal = new AuditJournal(directory, 2, DurabilityPolicy.OS, Duration.ZERO, CLOCK)) {
+      for (int i = 0; i < 6; i++) {
+        journal.append(i % 2, 10, Status.ACTIVE, Status.CANCELED);
+      }
+      assertThat(reader.find(1, NOW, NOW.plusSeconds(1))).hasSize(3);
+
+      for (int i = 0; i < 6; i++) {
+        journal.append(i % 2, 10, Status.CANCELED, Status.ACTIVE);
+      }
+    }
+
+    assertThat(reader.find(1, NOW, NOW.plusSeconds(1)))
+        .extracting(AuditRecord::sequence)
+        .containsExactly(1L, 3L, 5L, 7L, 9L, 11L);
+  }
+
+  @Test
+  void findFiltersBySubscriptionAndTimeRange() throws IOException {
+    var clock = new MutableClock();
+    try (var journal = new AuditJournal(directory, 16, DurabilityPolicy.OS, Duration.ZERO, clock)) {
+      journal.append(1, 10, null, Status.ACTIVE);
+      clock.instant = NOW.plusSeconds(60);
+      journal.append(2, 20, null, Status.ACTIVE);
+      journal.append(1, 10, Status.ACTIVE, Status.CANCELED);
+      clock.instant = NOW.plusSeconds(120);
+      journal.append(1, 10, Status.CANCELED, Status.EXPIRED);
+    }
+
+    var records = new AuditJournalReader(directory).find(1, NOW.plusSeconds(30), NOW.plusSeconds(120));
+
+    assertThat(records).extracting(AuditRecord::newStatus).containsExactly(Status.CANCELED);
+  }
+
+  @Test
+  void concurrentAppendsAreAllRecorded() throws Exception {
+    int threads = 8;
+    int perThread = 1_000;
+    try (var journal = new AuditJournal(directory, 512, DurabilityPolicy.BATCHED, Duration.ofMillis(5), CLOCK)) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            journal.append(thread * perThread + i, thread, Status.ACTIVE, Status.CANCELED);
+          }
+        });
+      }
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    Set<Integer> ids = new HashSet<>();
+    new AuditJournalReader(directory).replay(record -> ids.add(record.subscriptionId()));
+    assertThat(ids).hasSize(threads * perThread);
+  }
+
+  private Subscription getSubscription(Status status) {
+    return Subscription.builder()
+        .id(1)
+        .userId(10)
+        .name("someOne")
+        .provider(Provider.APPLE)
+        .expirationDate(NOW.plusSeconds(3600))
+        .status(status)
+        .build();
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant = NOW;
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.dmdev.cache;
+
+import static java.time.Clock.systemUTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.dmdev.dao.SubscriptionChangeDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Period;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Two "nodes" share the H2 database: each has its own service and near cache.
+ */
+class SubscriptionNearCacheIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private final SubscriptionChangeDao changeDao = SubscriptionChangeDao.getInstance();
+  private final NearCacheConfig config = NearCacheConfig.builder()
+      .pollInterval(Duration.ofMillis(10))
+      .maxStaleness(Duration.ofSeconds(1))
+      .build();
+
+  private SubscriptionService serviceA;
+  private SubscriptionNearCache cacheA;
+  private SubscriptionNearCache cacheB;
+
+  @BeforeEach
+  void init() {
+    subscriptionDao.setChangeLogEnabled(true);
+    serviceA = newService();
+    cacheA = new SubscriptionNearCache(subscriptionDao, changeDao, config, systemUTC());
+    cacheB = new SubscriptionNearCache(subscriptionDao, changeDao, config, systemUTC());
+    serviceA.addListener(cacheA);
+  }
+
+  @AfterEach
+  void close() {
+    subscriptionDao.setChangeLogEnabled(false);
+    cacheA.close();
+    cacheB.close();
+  }
+
+  @Test
+  void writeOnOneNodeInvalidatesOtherNodeAfterPoll() {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cacheB.poll();
+    assertThat(cacheB.findById(subscription.getId())).map(Subscription::getStatus).contains(Status.ACTIVE);
+    assertThat(cacheB.findByUserId(1)).hasSize(1);
+
+    serviceA.cancel(subscription.getId());
+    assertThat(cacheB.findById(subscription.getId())).map(Subscription::getStatus).contains(Status.ACTIVE);
+
+    cacheB.poll();
+    assertThat(cacheB.findById(subscription.getId())).map(Subscription::getStatus).contains(Status.CANCELED);
+    assertThat(cacheB.findByUserId(1)).extracting(Subscription::getStatus).containsExactly(Status.CANCELED);
+  }
+
+  @Test
+  void onlyChangedEntriesAreInvalidated() {
+    var changed = subscriptionDao.insert(getSubscription(1));
+    var untouched = subscriptionDao.insert(getSubscription(2));
+    cacheB.poll();
+    cacheB.findById(changed.getId());
+    cacheB.findById(untouched.getId());
+
+    serviceA.expire(changed.getId());
+    cacheB.poll();
+    cacheB.findById(untouched.getId());
+    cacheB.findById(changed.getId());
+
+    assertThat(cacheB.getHits()).isEqualTo(1);
+    assertThat(cacheB.getMisses()).isEqualTo(3);
+  }
+
+  @Test
+  void localWritesInvalidateImmediately() {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cacheA.poll();
+    cacheA.findById(subscription.getId());
+
+    serviceA.cancel(subscription.getId());
+
+    assertThat(cacheA.findById(subscription.getId())).map(Subscription::getStatus).contains(Status.CANCELED);
+  }
+
+  @Test
+  void deleteInvalidatesUserLists() {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cacheB.poll();
+    assertThat(cacheB.findByUserId(1)).hasSize(1);
+
+    subscriptionDao.delete(subscription.getId());
+    cacheB.poll();
+
+    assertThat(cacheB.findByUserId(1)).isEmpty();
+    assertThat(cacheB.findById(subscription.getId())).isEmpty();
+  }
+
+  @Test
+  void moveToAnotherUserInvalidatesListsOfBothUsers() {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cacheB.poll();
+    assertThat(cacheB.findByUserId(1)).hasSize(1);
+    assertThat(cacheB.findByUserId(2)).isEmpty();
+
+    subscriptionDao.update(subscription.setUserId(2));
+    cacheB.poll();
+
+    assertThat(cacheB.findByUserId(1)).isEmpty();
+    assertThat(cacheB.findByUserId(2)).hasSize(1);
+  }
+
+  @Test
+  void failedChangeLogInsertRollsBackRowWrite() throws SQLException {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    execute("ALTER TABLE subscription_change ADD CONSTRAINT reject_user_99 CHECK (user_id <> 99)");
+    try {
+      assertThrows(SQLException.class, () -> subscriptionDao.update(getSubscription(99).setId(subscription.getId())));
+    } finally {
+      execute("ALTER TABLE subscription_change DROP CONSTRAINT reject_user_99");
+    }
+
+    assertThat(subscriptionDao.findById(subscription.getId())).map(Subscription::getUserId).contains(1);
+  }
+
+  @Test
+  void readsBypassCacheWhenPollingFallsBehind() {
+    Clock clock = mock(Clock.class);
+    doReturn(0L).when(clock).millis();
+    var cache = new SubscriptionNearCache(subscriptionDao, changeDao, config, clock);
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cache.findById(subscription.getId());
+
+    doReturn(config.getMaxStaleness().toMillis() + 1).when(clock).millis();
+    serviceA.cancel(subscription.getId());
+
+    assertThat(cache.findById(subscription.getId())).map(Subscription::getStatus).contains(Status.CANCELED);
+    assertThat(cache.getBypasses()).isEqualTo(1);
+  }
+
+  @Test
+  void backgroundPollerBoundsStaleness() throws InterruptedException {
+    var subscription = subscriptionDao.insert(getSubscription(1));
+    cacheB.start();
+    cacheB.findById(subscription.getId());
+
+    serviceA.cancel(subscription.getId());
+
+    long deadline = System.nanoTime() + config.getMaxStaleness().toNanos();
+    while (cacheB.findById(subscription.getId()).map(Subscription::getStatus).orElseThrow() != Status.CANCELED) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (var connection = ConnectionManager.get();
+         var statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private SubscriptionService newService() {
+    return new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), systemUTC());
+  }
+
+  private Subscription getSubscription(int userId) {
+    return Subscription.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE)
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -0,0 +1,109 @@
+package com.dmdev.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.dmdev.dao.SubscriptionChangeDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import com.dmdev.entity.SubscriptionChange;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionNearCacheTest {
+
+  private static final NearCacheConfig CONFIG = NearCacheConfig.builder()
+      .maxStaleness(Duration.ofSeconds(1))
+      .build();
+
+  @Mock
+  private SubscriptionDao subscriptionDao;
+  @Mock
+  private SubscriptionChangeDao changeDao;
+  @Mock
+  private Clock clock;
+
+  @Test
+  void cursorWaitsAtGapUntilStalenessBound() {
+    doReturn(0L).when(changeDao).getLastSeq();
+    doReturn(0L).when(clock).millis();
+    var cache = new SubscriptionNearCache(subscriptionDao, changeDao, CONFIG, clock);
+    doReturn(List.of(change(1), change(3))).when(changeDao).findAfter(0, 1000);
+    doReturn(List.of(change(3))).when(changeDao).findAfter(1, 1000);
+    doReturn(List.of()).when(changeDao).findAfter(3, 1000);
+
+    cache.poll();
+    cache.poll();
+    verify(changeDao).findAfter(1, 1000);
+
+    doReturn(CONFIG.getMaxStaleness().toMillis()).when(clock).millis();
+    cache.poll();
+    cache.poll();
+
+    verify(changeDao, times(2)).findAfter(1, 1000);
+    verify(changeDao).findAfter(3, 1000);
+    assertThat(cache.getInvalidations()).isEqualTo(4);
+  }
+
+  @Test
+  void skippingGapFlushesCache() {
+    doReturn(0L).when(changeDao).getLastSeq();
+    doReturn(0L).when(clock).millis();
+    var cache = new SubscriptionNearCache(subscriptionDao, changeDao, CONFIG, clock);
+    doReturn(Optional.of(subscription(7))).when(subscriptionDao).findById(7);
+    doReturn(List.of(change(3))).when(changeDao).findAfter(0, 1000);
+    cache.findById(7);
+
+    cache.poll();
+    cache.findById(7);
+    verify(subscriptionDao).findById(7);
+
+    doReturn(CONFIG.getMaxStaleness().toMillis()).when(clock).millis();
+    cache.poll();
+    cache.findById(7);
+
+    verify(subscriptionDao, times(2)).findById(7);
+  }
+
+  @Test
+  void fullCacheEvictsEntryNotReadRecently() {
+    doReturn(0L).when(changeDao).getLastSeq();
+    doReturn(0L).when(clock).millis();
+    var config = NearCacheConfig.builder().maxEntries(4).build();
+    var cache = new SubscriptionNearCache(subscriptionDao, changeDao, config, clock);
+    for (int id = 1; id <= 3; id++) {
+      doReturn(Optional.of(subscription(id))).when(subscriptionDao).findById(id);
+    }
+
+    cache.findById(1);
+    cache.findById(2);
+    cache.findById(1);
+    cache.findById(3);
+    cache.findById(1);
+    cache.findById(3);
+    cache.findById(2);
+
+    verify(subscriptionDao).findById(1);
+    verify(subscriptionDao, times(2)).findById(2);
+    verify(subscriptionDao).findById(3);
+    assertThat(cache.getEvictions()).isEqualTo(2);
+  }
+
+  private static Subscription subscription(int id) {
+    return Subscription.builder().id(id).userId(1).name("name" + id).build();
+  }
+
+  private static SubscriptionChange change(long seq) {
+    return new SubscriptionChange(seq, (int) seq, 1, Instant.EPOCH);
+  }
+}
@@ -0,0 +1,182 @@
+package com.dmdev.dao;
+
+import static java.time.Clock.systemUTC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.time.Period;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class InMemorySubscriptionDaoTest {
+
+  private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+
+  private final InMemorySubscriptionDao subscriptionDao = new InMemorySubscriptionDao();
+
+  @Test
+  void insertAndFind() {
+    Subscription subscription = subscriptionDao.insert(getSubscription(1, "someOne", NOW));
+
+    assertThat(subscription.getId()).isEqualTo(1);
+    assertThat(subscriptionDao.findById(1)).contains(subscription);
+    assertThat(subscriptionDao.findByUserId(1)).containsExactly(subscription);
+    assertThat(subscriptionDao.findAll()).containsExactly(subscription);
+  }
+
+  @Test
+  void returnedEntitiesAreCopies() {
+    Subscription subscription = subscriptionDao.insert(getSubscription(1, "someOne", NOW));
+
+    subscription.setStatus(Status.EXPIRED);
+    subscriptionDao.findById(1).orElseThrow().setStatus(Status.CANCELED);
+
+    assertThat(subscriptionDao.findById(1)).map(Subscription::getStatus).contains(Status.ACTIVE);
+  }
+
+  @Test
+  void duplicateUserAndNameIsRejected() {
+    subscriptionDao.insert(getSubscription(1, "someOne", NOW));
+
+    assertThrows(SQLIntegrityConstraintViolationException.class,
+        () -> subscriptionDao.insert(getSubscription(1, "someOne", NOW)));
+    assertThat(subscriptionDao.size()).isEqualTo(1);
+  }
+
+  @Test
+  void nameIsReusableAfterDeleteAndRename() {
+    Subscription deleted = subscriptionDao.insert(getSubscription(1, "someOne", NOW));
+    Subscription renamed = subscriptionDao.insert(getSubscription(1, "someTwo", NOW));
+
+    assertTrue(subscriptionDao.delete(deleted.getId()));
+    subscriptionDao.insert(getSubscription(1, "someOne", NOW));
+    subscriptionDao.update(renamed.setName("someThree"));
+    subscriptionDao.insert(getSubscription(1, "someTwo", NOW));
+
+    assertFalse(subscriptionDao.delete(deleted.getId()));
+    assertThat(subscriptionDao.findByUserId(1)).extracting(Subscription::getName)
+        .containsExactlyInAnyOrder("someOne", "someTwo", "someThree");
+  }
+
+  @Test
+  void updateOfMissingRowIsIgnored() {
+    subscriptionDao.update(getSubscription(1, "someOne", NOW).setId(42));
+
+    assertThat(subscriptionDao.findById(42)).isEmpty();
+  }
+
+  @Test
+  void findByExpirationDateBetweenIsOrderedAndFollowsUpdates() {
+    Subscription late = subscriptionDao.insert(getSubscription(1, "late", NOW.plusSeconds(300)));
+    Subscription early = subscriptionDao.insert(getSubscription(2, "early", NOW.plusSeconds(100)));
+    subscriptionDao.insert(getSubscription(3, "outside", NOW.plusSeconds(1000)));
+
+    assertThat(subscriptionDao.findByExpirationDateBetween(NOW, NOW.plusSeconds(500)))
+        .extracting(Subscription::getId)
+        .containsExactly(early.getId(), late.getId());
+
+    subscriptionDao.update(early.setExpirationDate(NOW.plusSeconds(400)));
+
+    assertThat(subscriptionDao.findByExpirationDateBetween(NOW, NOW.plusSeconds(500)))
+        .extracting(Subscription::getId)
+        .containsExactly(late.getId(), early.getId());
+    assertThat(subscriptionDao.findByExpirationDateBetween(NOW, NOW.plusSeconds(200))).isEmpty();
+  }
+
+  @Test
+  void concurrentInsertsOfSameKeyKeepOneRow() throws InterruptedException {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    AtomicInteger violations = new AtomicInteger();
+    Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    for (int t = 0; t < threads; t++) {
+      executor.submit(() -> {
+        for (int userId = 0; userId < 1_000; userId++) {
+          try {
+            ids.add(subscriptionDao.insert(getSubscription(userId, "someOne", NOW)).getId());
+          } catch (Exception e) {
+            violations.incrementAndGet();
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertThat(ids).hasSize(1_000);
+    assertThat(violations.get()).isEqualTo(7_000);
+    assertThat(subscriptionDao.size()).isEqualTo(1_000);
+  }
+
+  @Test
+  void concurrentUpdatesKeepRowInExpirationIndex() throws InterruptedException {
+    Instant early = NOW.plusSeconds(60);
+    Instant late = NOW.plusSeconds(120);
+    int threads = 8;
+    for (int round = 0; round < 500; round++) {
+      Subscription row = subscriptionDao.insert(getSubscription(round, "someOne", early));
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (int t = 0; t < threads; t++) {
+        executor.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            // half of the writes repeat the date of the row they replace and share its index key
+            Instant date = ThreadLocalRandom.current().nextBoolean() ? late : early;
+            subscriptionDao.update(getSubscription(row.getUserId(), "someOne", date).setId(row.getId()));
+          }
+        });
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+      assertThat(subscriptionDao.findByExpirationDateBetween(NOW, late.plusSeconds(1)))
+          .extracting(Subscription::getId)
+          .containsOnlyOnce(row.getId());
+    }
+  }
+
+  @Test
+  void serviceRunsOnInMemoryDao() {
+    var subscriptionService = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), systemUTC());
+    var dto = CreateSubscriptionDto.builder()
+        .userId(1)
+        .name("someOne")
+        .provider(Provider.APPLE.name())
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .build();
+
+    Subscription inserted = subscriptionService.upsert(dto);
+    subscriptionService.cancel(inserted.getId());
+    Subscription reactivated = subscriptionService.upsert(dto);
+
+    assertThat(reactivated.getId()).isEqualTo(inserted.getId());
+    assertThat(subscriptionDao.findById(inserted.getId())).map(Subscription::getStatus).contains(Status.ACTIVE);
+  }
+
+  private Subscription getSubscription(int userId, String name, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.APPLE)
+        .expirationDate(expirationDate)
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -0,0 +1,73 @@
+package com.dmdev.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dmdev.entity.Subscription;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class OrderedRangeScanTest {
+
+  private static final int ROWS_PER_RANGE = 100;
+
+  @Test
+  void rowsArriveInRangeOrderWithBoundedReadAhead() throws Exception {
+    AtomicInteger buffered = new AtomicInteger();
+    AtomicInteger maxBuffered = new AtomicInteger();
+    List<Integer> ids = new ArrayList<>();
+
+    try (var scan = new OrderedRangeScan<>(ranges(16), 2, 10, (range, consumer) -> read(range, row -> {
+      maxBuffered.accumulateAndGet(buffered.incrementAndGet(), Math::max);
+      consumer.accept(row);
+    }))) {
+      while (scan.hasNext()) {
+        ids.add(scan.next().getId());
+        buffered.decrementAndGet();
+        if (ids.size() % ROWS_PER_RANGE == 0) {
+          TimeUnit.MILLISECONDS.sleep(5);
+        }
+      }
+    }
+
+    assertThat(ids).hasSize(16 * ROWS_PER_RANGE).isSorted();
+    // two ranges of ten queued rows and a row each worker is blocked on, plus the row being read
+    assertThat(maxBuffered.get()).isLessThanOrEqualTo(2 * (10 + 1) + 1);
+  }
+
+  @Test
+  void failureOfRangeIsRethrownToReader() {
+    var failure = new IllegalStateException("range failed");
+    var scan = new OrderedRangeScan<>(ranges(4), 2, 10, (Integer range, Consumer<Subscription> consumer) -> {
+      if (range == 2) {
+        throw failure;
+      }
+      read(range, consumer);
+    });
+
+    assertThatThrownBy(() -> scan.forEachRemaining(row -> {
+    })).isSameAs(failure);
+  }
+
+  @Test
+  void closingEarlyStopsWorkers() {
+    try (var scan = new OrderedRangeScan<>(ranges(8), 2, 10, OrderedRangeScanTest::read)) {
+      assertThat(scan.next().getId()).isZero();
+    }
+  }
+
+  private static List<Integer> ranges(int count) {
+    return IntStream.range(0, count).boxed().toList();
+  }
+
+  private static void read(Integer range, Consumer<Subscription> consumer) {
+    for (int i = 0; i < ROWS_PER_RANGE; i++) {
+      consumer.accept(Subscription.builder().id(range * ROWS_PER_RANGE + i).build());
+    }
+  }
+}
@@ -12,8 +12,11 @@ import com.dmdev.entity.Subscription;
 import com.dmdev.integration.IntegrationTestBase;
 import java.time.Instant;
 import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.Test;
 
 class SubscriptionDaoIT extends IntegrationTestBase {
@@ -109,6 +112,145 @@ class SubscriptionDaoIT extends IntegrationTestBase {
     assertThat(actualResult.get()).isEmpty();
   }
 
+  @Test
+  void scanInParallelVisitsEveryRow() {
+    for (int i = 0; i < 50; i++) {
+      subscriptionDao.insert(getSubscription("someOne", i));
+    }
+    Set<Integer> visited = ConcurrentHashMap.newKeySet();
+
+    subscriptionDao.scanInParallel(4, false, subscription -> visited.add(subscription.getId()));
+
+    assertThat(visited).hasSize(50);
+  }
+
+  @Test
+  void orderedScanInParallelKeepsIdOrder() {
+    for (int i = 0; i < 50; i++) {
+      subscriptionDao.insert(getSubscription("someOne", i));
+    }
+    List<Integer> visited = new ArrayList<>();
+
+    subscriptionDao.scanInParallel(4, true, subscription -> visited.add(subscription.getId()));
+
+    assertThat(visited).hasSize(50).isSorted();
+  }
+
+  @Test
+  void streamInParallelReturnsEveryRow() {
+    for (int i = 0; i < 50; i++) {
+      subscriptionDao.insert(getSubscription("someOne", i));
+    }
+
+    List<Integer> ids = subscriptionDao.streamInParallel(3)
+        .map(Subscription::getId)
+        .toList();
+
+    assertThat(ids).hasSize(50).doesNotHaveDuplicates().isSorted();
+  }
+
+  @Test
+  void streamInParallelCanBeClosedEarly() {
+    for (int i = 0; i < 50; i++) {
+      subscriptionDao.insert(getSubscription("someOne", i));
+    }
+
+    try (var subscriptions = subscriptionDao.streamInParallel(2)) {
+      assertThat(subscriptions.limit(5).map(Subscription::getId).toList()).hasSize(5).isSorted();
+    }
+  }
+
+  @Test
+  void scanInParallelOfEmptyTable() {
+    List<Subscription> visited = new ArrayList<>();
+
+    subscriptionDao.scanInParallel(4, true, visited::add);
+
+    assertThat(visited).isEmpty();
+  }
+
+  @Test
+  void findByExpirationDateBetween() {
+    Instant now = Instant.now();
+    Subscription late = subscriptionDao.insert(getSubscription("someOne1", 1).setExpirationDate(now.plusSeconds(300)));
+    Subscription early = subscriptionDao.insert(getSubscription("someOne2", 2).setExpirationDate(now.plusSeconds(100)));
+    subscriptionDao.insert(getSubscription("someOne3", 3).setExpirationDate(now.plusSeconds(1000)));
+
+    List<Subscription> subscriptions = subscriptionDao.findByExpirationDateBetween(now, now.plusSeconds(500));
+
+    assertThat(subscriptions).extracting(Subscription::getId).containsExactly(early.getId(), late.getId());
+  }
+
+  @Test
+  void insertAllAndUpdateAllUseGeneratedIds() {
+    List<Subscription> inserted = subscriptionDao.insertAll(List.of(
+        getSubscription("someOne1", 1), getSubscription("someOne2", 2)));
+    inserted.forEach(subscription -> subscription.setStatus(Status.CANCELED));
+
+    subscriptionDao.updateAll(inserted);
+
+    assertThat(subscriptionDao.findByUserIds(List.of(1, 2))).extracting(Subscription::getStatus)
+        .containsExactly(Status.CANCELED, Status.CANCELED);
+  }
+
+  @Test
+  void countByProviderAndStatus() {
+    subscriptionDao.insert(getSubscription("someOne1", 1));
+    subscriptionDao.insert(getSubscription("someOne2", 1).setStatus(Status.CANCELED));
+    subscriptionDao.insert(getSubscription("someOne3", 2));
+
+    var counts = subscriptionDao.countByProviderAndStatus();
+
+    assertThat(counts.get(Provider.APPLE))
+        .containsEntry(Status.ACTIVE, 2L)
+        .containsEntry(Status.CANCELED, 1L)
+        .doesNotContainKey(Status.EXPIRED);
+  }
+
+  @Test
+  void deleteAllRemovesOnlyGivenIds() {
+    Subscription first = subscriptionDao.insert(getSubscription("someOne1", 1));
+    Subscription second = subscriptionDao.insert(getSubscription("someOne2", 1));
+    Subscription kept = subscriptionDao.insert(getSubscription("someOne3", 1));
+
+    int deleted = subscriptionDao.deleteAll(List.of(first.getId(), second.getId(), Integer.MAX_VALUE));
+
+    assertThat(deleted).isEqualTo(2);
+    assertThat(subscriptionDao.findAll()).extracting(Subscription::getId).containsExactly(kept.getId());
+  }
+
+  @Test
+  void findExpiredPagesInExpirationOrder() {
+    Instant now = Instant.now();
+    Subscription late = subscriptionDao.insert(getExpired("someOne1", now.minusSeconds(100)));
+    Subscription early = subscriptionDao.insert(getExpired("someOne2", now.minusSeconds(300)));
+    Subscription middle = subscriptionDao.insert(getExpired("someOne3", now.minusSeconds(200)));
+    subscriptionDao.insert(getSubscription("someOne4", 1).setExpirationDate(now.minusSeconds(400)));
+
+    List<Subscription> firstPage = subscriptionDao.findExpired(now, null, 2);
+    List<Subscription> secondPage = subscriptionDao.findExpired(now, firstPage.get(1), 2);
+
+    assertThat(firstPage).extracting(Subscription::getId).containsExactly(early.getId(), middle.getId());
+    assertThat(secondPage).extracting(Subscription::getId).containsExactly(late.getId());
+  }
+
+  @Test
+  void deleteExpiredKeepsRenewedRows() {
+    Instant now = Instant.now();
+    Subscription expired = subscriptionDao.insert(getExpired("someOne1", now.minusSeconds(100)));
+    Subscription renewed = subscriptionDao.insert(getExpired("someOne2", now.minusSeconds(100)));
+    subscriptionDao.update(renewed.setStatus(Status.ACTIVE));
+
+    int deleted = subscriptionDao.deleteExpired(List.of(expired.getId(), renewed.getId()), now);
+
+    assertThat(deleted).isEqualTo(1);
+    assertThat(subscriptionDao.findAll()).extracting(Subscription::getId).containsExactly(renewed.getId());
+  }
+
+  private Subscription getExpired(String name, Instant expirationDate) {
+    return getSubscription(name, 1).setStatus(Status.EXPIRED).setExpirationDate(expirationDate);
+  }
+
   private Subscription getSubscription(String name, int userID) {
     return Subscription.builder()
         .userId(userID)
@@ -0,0 +1,135 @@
+package com.dmdev.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionEventRingBufferTest {
+
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2030-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+  private SubscriptionEventRingBuffer ringBuffer;
+
+  @AfterEach
+  void close() {
+    if (ringBuffer != null) {
+      ringBuffer.close();
+    }
+  }
+
+  @Test
+  void capacityMustBePowerOfTwo() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new SubscriptionEventRingBuffer(10, WaitStrategy.YIELDING, BackpressurePolicy.BLOCK, CLOCK));
+  }
+
+  @Test
+  void consumerReceivesEventsInOrder() throws InterruptedException {
+    ringBuffer = new SubscriptionEventRingBuffer(8, WaitStrategy.YIELDING, BackpressurePolicy.BLOCK, CLOCK);
+    List<String> received = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(20);
+    ringBuffer.subscribe("test", (event, endOfBatch) -> {
+      received.add(event.getId() + ":" + event.getOldStatus() + "->" + event.getNewStatus());
+      latch.countDown();
+    });
+
+    for (int i = 0; i < 20; i++) {
+      ringBuffer.publish(i, 1, Status.ACTIVE, Status.CANCELED);
+    }
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertThat(received).hasSize(20);
+    assertThat(received.get(0)).isEqualTo("0:ACTIVE->CANCELED");
+    assertThat(received.get(19)).isEqualTo("19:ACTIVE->CANCELED");
+  }
+
+  @Test
+  void onChangePublishesSubscriptionState() throws InterruptedException {
+    ringBuffer = new SubscriptionEventRingBuffer(4, WaitStrategy.SLEEPING, BackpressurePolicy.BLOCK, CLOCK);
+    List<Long> timestamps = new CopyOnWriteArrayList<>();
+    List<Integer> userIds = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    ringBuffer.subscribe("test", (event, endOfBatch) -> {
+      timestamps.add(event.getTimestamp());
+      userIds.add(event.getUserId());
+      latch.countDown();
+    });
+
+    ringBuffer.onChange(Subscription.builder()
+        .id(7)
+        .userId(42)
+        .name("someName")
+        .provider(Provider.APPLE)
+        .status(Status.ACTIVE)
+        .build(), null);
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertThat(timestamps).containsExactly(CLOCK.millis());
+    assertThat(userIds).containsExactly(42);
+  }
+
+  @Test
+  void dropPolicyRejectsWhenSlowestConsumerIsFull() {
+    ringBuffer = new SubscriptionEventRingBuffer(2, WaitStrategy.YIELDING, BackpressurePolicy.DROP, CLOCK);
+    CountDownLatch release = new CountDownLatch(1);
+    ringBuffer.subscribe("slow", (event, endOfBatch) -> awaitQuietly(release));
+
+    assertTrue(ringBuffer.publish(1, 1, null, Status.ACTIVE));
+    assertTrue(ringBuffer.publish(2, 1, null, Status.ACTIVE));
+    boolean accepted = ringBuffer.publish(3, 1, null, Status.ACTIVE);
+    release.countDown();
+
+    assertFalse(accepted);
+    assertThat(ringBuffer.getDropped()).isEqualTo(1);
+  }
+
+  @Test
+  void everyConsumerSeesEveryEventFromConcurrentProducers() throws InterruptedException {
+    ringBuffer = new SubscriptionEventRingBuffer(64, WaitStrategy.YIELDING, BackpressurePolicy.BLOCK, CLOCK);
+    int producers = 4;
+    int eventsPerProducer = 5_000;
+    CountDownLatch first = new CountDownLatch(producers * eventsPerProducer);
+    CountDownLatch second = new CountDownLatch(producers * eventsPerProducer);
+    ringBuffer.subscribe("first", (event, endOfBatch) -> first.countDown());
+    ringBuffer.subscribe("second", (event, endOfBatch) -> second.countDown());
+
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    for (int p = 0; p < producers; p++) {
+      executor.execute(() -> {
+        for (int i = 0; i < eventsPerProducer; i++) {
+          ringBuffer.publish(i, i, Status.ACTIVE, Status.EXPIRED);
+        }
+      });
+    }
+    executor.shutdown();
+
+    assertTrue(first.await(10, TimeUnit.SECONDS));
+    assertTrue(second.await(10, TimeUnit.SECONDS));
+    assertThat(ringBuffer.getCursor()).isEqualTo(producers * eventsPerProducer - 1);
+    assertThat(ringBuffer.getDropped()).isZero();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -15,11 +15,20 @@ import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionKeyFilter;
 import com.dmdev.service.SubscriptionService;
 import com.dmdev.validator.CreateSubscriptionValidator;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -62,6 +71,126 @@ public class SubscriptionServiceIT extends IntegrationTestBase {
     assertThat(updatedSubscription.getStatus()).isEqualTo(Status.ACTIVE);
   }
 
+  @Test
+  void upsertWithKeyFilterLoadedFromTableUpdatesExistingEntity() {
+    CreateSubscriptionDto dto = getSubscriptionDTO();
+    Subscription existing = subscriptionDao.insert(getSubscription(Status.CANCELED));
+    SubscriptionKeyFilter keyFilter = SubscriptionKeyFilter.load(subscriptionDao, 100, 0.01);
+    subscriptionService.setSubscriptionKeyFilter(keyFilter);
+
+    Subscription updatedSubscription = subscriptionService.upsert(dto);
+
+    assertEquals(existing.getId(), updatedSubscription.getId());
+    assertThat(updatedSubscription.getStatus()).isEqualTo(Status.ACTIVE);
+    assertThat(keyFilter.getSkippedLookups()).isZero();
+  }
+
+  @Test
+  void upsertWithKeyFilterUpdatesRowWrittenBehindItsBack() {
+    SubscriptionKeyFilter keyFilter = new SubscriptionKeyFilter(100, 0.01);
+    subscriptionService.setSubscriptionKeyFilter(keyFilter);
+    // e.g. written by another process, the filter has never seen the key
+    Subscription existing = subscriptionDao.insert(getSubscription(Status.CANCELED));
+
+    Subscription updatedSubscription = subscriptionService.upsert(getSubscriptionDTO());
+
+    assertEquals(existing.getId(), updatedSubscription.getId());
+    assertThat(updatedSubscription.getStatus()).isEqualTo(Status.ACTIVE);
+    assertThat(subscriptionDao.findAll()).hasSize(1);
+    assertTrue(keyFilter.mightExist(existing.getUserId(), existing.getName()));
+  }
+
+  @Test
+  void groupCommitWithKeyFilterUpdatesRowWrittenBehindItsBack() throws Exception {
+    subscriptionService.setSubscriptionKeyFilter(new SubscriptionKeyFilter(100, 0.01));
+    Subscription existing = subscriptionDao.insert(createSubscriptionMapper.map(getSubscriptionDTO(1))
+        .setStatus(Status.CANCELED));
+    subscriptionService.enableGroupCommit(Duration.ofSeconds(5), 2);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      var renewed = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(1)));
+      var created = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(2)));
+
+      assertEquals(existing.getId(), renewed.get().getId());
+      assertThat(created.get().getUserId()).isEqualTo(2);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(subscriptionDao.findAll()).hasSize(2)
+        .extracting(Subscription::getStatus)
+        .containsOnly(Status.ACTIVE);
+  }
+
+  @Test
+  void groupCommitWritesConcurrentUpsertsInOneBatch() throws Exception {
+    Subscription existing = subscriptionDao.insert(createSubscriptionMapper.map(getSubscriptionDTO(1))
+        .setStatus(Status.CANCELED));
+    subscriptionService.enableGroupCommit(Duration.ofSeconds(5), 4);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Subscription>> futures = new ArrayList<>();
+      for (int userId = 1; userId <= 4; userId++) {
+        CreateSubscriptionDto dto = getSubscriptionDTO(userId);
+        futures.add(executor.submit(() -> subscriptionService.upsert(dto)));
+      }
+      for (Future<Subscription> future : futures) {
+        assertThat(future.get().getStatus()).isEqualTo(Status.ACTIVE);
+      }
+      assertThat(futures.get(0).get().getId()).isEqualTo(existing.getId());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(subscriptionDao.findAll()).hasSize(4)
+        .extracting(Subscription::getStatus)
+        .containsOnly(Status.ACTIVE);
+  }
+
+  @Test
+  void groupCommitUpsertsRepeatedKeyOnce() throws Exception {
+    subscriptionService.enableGroupCommit(Duration.ofSeconds(5), 2);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      var first = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(1)));
+      var second = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(1)));
+
+      assertEquals(first.get().getId(), second.get().getId());
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(1);
+  }
+
+  @Test
+  void groupCommitFailureOfOneMemberKeepsOthers() throws Exception {
+    subscriptionService.enableGroupCommit(Duration.ofSeconds(5), 3);
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      var first = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(1)));
+      // longer than the name column, fails only when written
+      var failing = executor.submit(() -> subscriptionService.upsert(CreateSubscriptionDto.builder()
+          .userId(2)
+          .name("x".repeat(100))
+          .provider(Provider.APPLE.name())
+          .expirationDate(Instant.now().plus(Period.ofDays(30)))
+          .build()));
+      var third = executor.submit(() -> subscriptionService.upsert(getSubscriptionDTO(3)));
+
+      assertThat(first.get().getStatus()).isEqualTo(Status.ACTIVE);
+      assertThat(third.get().getStatus()).isEqualTo(Status.ACTIVE);
+      var failure = assertThrows(ExecutionException.class, failing::get);
+      assertThat(failure.getCause()).isInstanceOf(SQLException.class);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(subscriptionDao.findAll()).extracting(Subscription::getUserId).containsExactlyInAnyOrder(1, 3);
+  }
+
   @Test
   void canselForActiveSub() {
     Subscription subscription = subscriptionDao.insert(getSubscription(Status.ACTIVE));
@@ -115,8 +244,12 @@ public class SubscriptionServiceIT extends IntegrationTestBase {
   }
 
   private CreateSubscriptionDto getSubscriptionDTO() {
+    return getSubscriptionDTO(1);
+  }
+
+  private CreateSubscriptionDto getSubscriptionDTO(int userId) {
     return CreateSubscriptionDto.builder()
-        .userId(1)
+        .userId(userId)
         .name("someOne1")
         .provider(Provider.APPLE.name())
         .expirationDate(Instant.now().plus(Period.ofDays(30)))
@@ -0,0 +1,48 @@
+package com.dmdev.load;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.util.ApplicationStartup;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Period;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Started in a fresh JVM by {@link StartupBenchmark}: optionally runs {@link ApplicationStartup},
+ * then serves one upsert and one lookup and prints the timings as one line of JSON.
+ */
+class FirstRequestProbe {
+
+  public static void main(String[] args) {
+    boolean startup = args.length > 0 && "startup".equals(args[0]);
+    long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    if (startup) {
+      ApplicationStartup.start();
+    }
+    long ready = System.currentTimeMillis();
+
+    long requestStart = System.nanoTime();
+    var subscriptionDao = SubscriptionDao.getInstance();
+    var subscriptionService = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+    subscriptionService.upsert(CreateSubscriptionDto.builder()
+        .userId(1)
+        .name("probe")
+        .provider(Provider.APPLE.name())
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .build());
+    subscriptionDao.findByUserId(1);
+    long firstRequestMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart);
+
+    System.out.printf(Locale.ROOT, "{\"readyMillis\": %d, \"firstRequestMicros\": %d, \"firstResponseMillis\": %d}%n",
+        ready - jvmStart, firstRequestMicros, System.currentTimeMillis() - jvmStart);
+  }
+}
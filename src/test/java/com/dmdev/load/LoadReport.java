@@ -0,0 +1,107 @@
+package com.dmdev.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class LoadReport {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+  private final LoadTestConfig config;
+  private final double elapsedSeconds;
+  private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+  private final Map<Operation, long[]> failures = new EnumMap<>(Operation.class);
+
+  LoadReport(LoadTestConfig config, long elapsedNanos) {
+    this.config = config;
+    this.elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new LatencyHistogram());
+      serviceTimes.put(operation, new LatencyHistogram());
+      failures.put(operation, new long[2]);
+    }
+  }
+
+  void add(Operation operation, LatencyHistogram latency, LatencyHistogram serviceTime, long rejected, long errors) {
+    latencies.get(operation).add(latency);
+    serviceTimes.get(operation).add(serviceTime);
+    failures.get(operation)[0] += rejected;
+    failures.get(operation)[1] += errors;
+  }
+
+  long getCount(Operation operation) {
+    return latencies.get(operation).getTotalCount();
+  }
+
+  long getErrors(Operation operation) {
+    return failures.get(operation)[1];
+  }
+
+  double getThroughput(Operation operation) {
+    return getCount(operation) / elapsedSeconds;
+  }
+
+  double getThroughput() {
+    long count = 0;
+    for (Operation operation : Operation.values()) {
+      count += getCount(operation);
+    }
+    return count / elapsedSeconds;
+  }
+
+  long getLatencyMicros(Operation operation, double percentile) {
+    return TimeUnit.NANOSECONDS.toMicros(latencies.get(operation).getValueAtPercentile(percentile));
+  }
+
+  String toJson() {
+    var total = new LatencyHistogram();
+    latencies.values().forEach(total::add);
+
+    var json = new StringBuilder("{\n");
+    json.append("  \"config\": {")
+        .append(field("threads", config.getThreads())).append(", ")
+        .append(field("durationSeconds", config.getDuration().toSeconds())).append(", ")
+        .append(field("targetRate", config.getTargetRate())).append(", ")
+        .append(field("users", config.getUsers())).append(", ")
+        .append(field("userSkew", config.getUserSkew())).append(", ")
+        .append(field("coordinatedOmissionCorrected", config.getTargetRate() > 0))
+        .append("},\n");
+    json.append("  ").append(field("elapsedSeconds", elapsedSeconds)).append(",\n");
+    json.append("  ").append(field("throughput", total.getTotalCount() / elapsedSeconds)).append(",\n");
+    json.append("  \"operations\": {\n");
+    var operations = Operation.values();
+    for (int i = 0; i < operations.length; i++) {
+      var operation = operations[i];
+      json.append("    \"").append(operation.name()).append("\": {")
+          .append(field("count", getCount(operation))).append(", ")
+          .append(field("rejected", failures.get(operation)[0])).append(", ")
+          .append(field("errors", failures.get(operation)[1])).append(", ")
+          .append(field("throughput", getThroughput(operation))).append(", ")
+          .append("\"latencyMicros\": ").append(percentiles(latencies.get(operation))).append(", ")
+          .append("\"serviceTimeMicros\": ").append(percentiles(serviceTimes.get(operation)))
+          .append(i < operations.length - 1 ? "},\n" : "}\n");
+    }
+    return json.append("  }\n}\n").toString();
+  }
+
+  private static String percentiles(LatencyHistogram histogram) {
+    var json = new StringBuilder("{");
+    for (double percentile : PERCENTILES) {
+      json.append(field("p" + String.valueOf(percentile).replace(".0", "").replace('.', '_'),
+          TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(percentile)))).append(", ");
+    }
+    return json.append(field("mean", histogram.getMean() / 1_000))
+        .append(", ")
+        .append(field("max", TimeUnit.NANOSECONDS.toMicros(histogram.getMax())))
+        .append("}")
+        .toString();
+  }
+
+  private static String field(String name, Object value) {
+    var formatted = value instanceof Double number ? String.format(Locale.ROOT, "%.3f", number) : value;
+    return "\"" + name + "\": " + formatted;
+  }
+}
@@ -0,0 +1,78 @@
+package com.dmdev.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+class LoadTestConfig {
+
+  @Builder.Default
+  int threads = 4;
+  @Builder.Default
+  Duration warmup = Duration.ofSeconds(5);
+  @Builder.Default
+  Duration duration = Duration.ofSeconds(30);
+  /**
+   * Operations per second across all threads; 0 runs a closed loop as fast as possible.
+   */
+  @Builder.Default
+  double targetRate = 0;
+  @Builder.Default
+  int users = 10_000;
+  @Builder.Default
+  int plansPerUser = 3;
+  /**
+   * Zipfian skew of the user id distribution in [0, 1); 0 means uniform.
+   */
+  @Builder.Default
+  double userSkew = 0.99;
+  @Builder.Default
+  Map<Operation, Integer> mix = defaultMix();
+  /**
+   * Group commit window of upserts; zero keeps one commit per upsert.
+   */
+  @Builder.Default
+  Duration groupCommitWindow = Duration.ZERO;
+  @Builder.Default
+  int groupCommitSize = 64;
+  /**
+   * Runs against {@link com.dmdev.dao.InMemorySubscriptionDao} instead of the database.
+   */
+  boolean inMemory;
+
+  static LoadTestConfig fromSystemProperties() {
+    var defaults = LoadTestConfig.builder().build();
+    Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      mix.put(operation, Integer.getInteger("load.mix." + operation.name().toLowerCase(),
+          defaults.getMix().get(operation)));
+    }
+    return LoadTestConfig.builder()
+        .threads(Integer.getInteger("load.threads", defaults.getThreads()))
+        .warmup(Duration.parse(System.getProperty("load.warmup", defaults.getWarmup().toString())))
+        .duration(Duration.parse(System.getProperty("load.duration", defaults.getDuration().toString())))
+        .targetRate(Double.parseDouble(System.getProperty("load.rate", String.valueOf(defaults.getTargetRate()))))
+        .users(Integer.getInteger("load.users", defaults.getUsers()))
+        .plansPerUser(Integer.getInteger("load.plans", defaults.getPlansPerUser()))
+        .userSkew(Double.parseDouble(System.getProperty("load.skew", String.valueOf(defaults.getUserSkew()))))
+        .mix(mix)
+        .groupCommitWindow(Duration.parse(System.getProperty("load.group-commit.window",
+            defaults.getGroupCommitWindow().toString())))
+        .groupCommitSize(Integer.getInteger("load.group-commit.size", defaults.getGroupCommitSize()))
+        .inMemory("memory".equalsIgnoreCase(System.getProperty("load.dao", "jdbc")))
+        .build();
+  }
+
+  private static Map<Operation, Integer> defaultMix() {
+    Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    mix.put(Operation.UPSERT, 40);
+    mix.put(Operation.CANCEL, 5);
+    mix.put(Operation.EXPIRE, 5);
+    mix.put(Operation.FIND_BY_USER_ID, 50);
+    return mix;
+  }
+}
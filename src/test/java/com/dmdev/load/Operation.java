@@ -0,0 +1,5 @@
+package com.dmdev.load;
+
+enum Operation {
+  UPSERT, CANCEL, EXPIRE, FIND_BY_USER_ID
+}
@@ -0,0 +1,124 @@
+package com.dmdev.load;
+
+import com.dmdev.util.PropertiesUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Time to first request of a fresh JVM: without a startup phase, with {@code ApplicationStartup},
+ * and with {@code ApplicationStartup} plus an AppCDS archive when {@code startup.cds-archive} is set
+ * (the archive is dumped by the first run if the file does not exist yet).
+ * Runs {@code startup.runs} JVMs per variant and prints the medians as JSON.
+ */
+class StartupBenchmark {
+
+  private static final String RUNS_KEY = "startup.runs";
+  private static final String CDS_ARCHIVE_KEY = "startup.cds-archive";
+  // the probe may resolve another application.properties first, so it gets the launcher's database explicitly
+  private static final List<String> FORWARDED_KEYS = List.of("db.url", "db.user", "db.password", "db.driver",
+      "db.schema.migrate-on-startup");
+  private static final Pattern FIELD = Pattern.compile("\"(\\w+)\": (\\d+)");
+
+  private final int runs;
+  private final Path cdsArchive;
+
+  StartupBenchmark(int runs, Path cdsArchive) {
+    this.runs = runs;
+    this.cdsArchive = cdsArchive;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var archive = System.getProperty(CDS_ARCHIVE_KEY);
+    var results = new StartupBenchmark(Integer.getInteger(RUNS_KEY, 5), archive == null ? null : Path.of(archive))
+        .run();
+    System.out.print(toJson(results));
+  }
+
+  Map<String, Map<String, Long>> run() throws IOException, InterruptedException {
+    Map<String, Map<String, Long>> results = new LinkedHashMap<>();
+    results.put("lazy", measure("lazy", List.of()));
+    results.put("startup", measure("startup", List.of()));
+    if (cdsArchive != null) {
+      if (!Files.exists(cdsArchive)) {
+        probe("startup", List.of("-XX:ArchiveClassesAtExit=" + cdsArchive));
+      }
+      results.put("startup+appcds", measure("startup", List.of("-XX:SharedArchiveFile=" + cdsArchive)));
+    }
+    return results;
+  }
+
+  private Map<String, Long> measure(String mode, List<String> jvmOptions) throws IOException, InterruptedException {
+    Map<String, List<Long>> samples = new LinkedHashMap<>();
+    for (int i = 0; i < runs; i++) {
+      probe(mode, jvmOptions).forEach((field, value) -> samples.computeIfAbsent(field, key -> new ArrayList<>()).add(value));
+    }
+    Map<String, Long> medians = new LinkedHashMap<>();
+    samples.forEach((field, values) -> {
+      long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+      medians.put(field, sorted[sorted.length / 2]);
+    });
+    return medians;
+  }
+
+  private Map<String, Long> probe(String mode, List<String> jvmOptions) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    for (String key : FORWARDED_KEYS) {
+      var value = PropertiesUtil.get(key);
+      if (value != null) {
+        command.add("-D" + key + "=" + value);
+      }
+    }
+    command.addAll(Arrays.asList("-cp", getClassPath(), FirstRequestProbe.class.getName(), mode));
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    var output = new String(process.getInputStream().readAllBytes());
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException("Probe failed: " + output);
+    }
+
+    Map<String, Long> fields = new LinkedHashMap<>();
+    var line = output.lines().filter(candidate -> candidate.startsWith("{")).reduce((first, last) -> last)
+        .orElseThrow(() -> new IllegalStateException("No result in probe output: " + output));
+    Matcher matcher = FIELD.matcher(line);
+    while (matcher.find()) {
+      fields.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+    }
+    return fields;
+  }
+
+  // test runners may put the project on the module path, the probe JVM gets everything on its class path
+  private static String getClassPath() {
+    return Stream.of(System.getProperty("jdk.module.path"), System.getProperty("java.class.path"))
+        .filter(path -> path != null && !path.isEmpty())
+        .collect(Collectors.joining(File.pathSeparator));
+  }
+
+  static String toJson(Map<String, Map<String, Long>> results) {
+    var json = new StringBuilder("{\n");
+    var variants = new ArrayList<>(results.entrySet());
+    for (int i = 0; i < variants.size(); i++) {
+      var variant = variants.get(i);
+      json.append(String.format(Locale.ROOT, "  \"%s\": {", variant.getKey()));
+      var fields = new ArrayList<>(variant.getValue().entrySet());
+      for (int j = 0; j < fields.size(); j++) {
+        json.append(String.format(Locale.ROOT, "\"%s\": %d%s", fields.get(j).getKey(), fields.get(j).getValue(),
+            j + 1 < fields.size() ? ", " : ""));
+      }
+      json.append(i + 1 < variants.size() ? "},\n" : "}\n");
+    }
+    return json.append("}\n").toString();
+  }
+}
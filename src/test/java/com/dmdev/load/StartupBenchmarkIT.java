@@ -0,0 +1,18 @@
+package com.dmdev.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class StartupBenchmarkIT {
+
+  @Test
+  void startupPhaseMovesWorkOutOfFirstRequest() throws Exception {
+    var results = new StartupBenchmark(1, null).run();
+
+    assertThat(results).containsOnlyKeys("lazy", "startup");
+    assertThat(results.get("lazy").get("firstRequestMicros"))
+        .as("first request with and without the startup phase in %s", StartupBenchmark.toJson(results))
+        .isGreaterThan(results.get("startup").get("firstRequestMicros"));
+  }
+}
@@ -0,0 +1,217 @@
+package com.dmdev.load;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dao.SubscriptionRepository;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.exception.SubscriptionException;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.util.SchemaInitializer;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of {@link SubscriptionService} operations from several threads and
+ * reports throughput and latency percentiles per operation as JSON.
+ *
+ * <p>Configured through {@code load.*} system properties (see {@link LoadTestConfig}); the
+ * database is picked by the usual {@code db.*} properties, so {@code -Ddb.url=jdbc:postgresql://...}
+ * runs it against Postgres instead of the in-memory H2. With {@code load.rate} set, latency is
+ * measured from the intended start of every operation, which corrects for coordinated omission.
+ */
+public class SubscriptionLoadGenerator {
+
+  private static final String REPORT_KEY = "load.report";
+
+  private final LoadTestConfig config;
+  private final SubscriptionService subscriptionService;
+  private final SubscriptionRepository subscriptionDao;
+  private final ZipfianGenerator userGenerator;
+  private final AtomicIntegerArray subscriptionIds;
+
+  public SubscriptionLoadGenerator(LoadTestConfig config, SubscriptionRepository subscriptionDao,
+      SubscriptionService subscriptionService) {
+    this.config = config;
+    this.subscriptionDao = subscriptionDao;
+    this.subscriptionService = subscriptionService;
+    this.userGenerator = new ZipfianGenerator(config.getUsers(), config.getUserSkew());
+    this.subscriptionIds = new AtomicIntegerArray(config.getUsers());
+  }
+
+  public static void main(String[] args) throws Exception {
+    var config = LoadTestConfig.fromSystemProperties();
+    SubscriptionRepository subscriptionDao;
+    if (config.isInMemory()) {
+      subscriptionDao = new InMemorySubscriptionDao();
+    } else {
+      SchemaInitializer.migrate();
+      subscriptionDao = SubscriptionDao.getInstance();
+    }
+    var subscriptionService = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+    if (!config.getGroupCommitWindow().isZero()) {
+      subscriptionService.enableGroupCommit(config.getGroupCommitWindow(), config.getGroupCommitSize());
+    }
+    var report = new SubscriptionLoadGenerator(config, subscriptionDao, subscriptionService).run();
+
+    var reportPath = System.getProperty(REPORT_KEY);
+    if (reportPath == null) {
+      System.out.print(report.toJson());
+    } else {
+      Files.writeString(Path.of(reportPath), report.toJson());
+    }
+  }
+
+  LoadReport run() throws InterruptedException, ExecutionException {
+    preload();
+    var executor = Executors.newFixedThreadPool(config.getThreads());
+    try {
+      runPhase(executor, config.getWarmup());
+      long start = System.nanoTime();
+      var workers = runPhase(executor, config.getDuration());
+      var report = new LoadReport(config, System.nanoTime() - start);
+      for (Worker worker : workers) {
+        for (Operation operation : Operation.values()) {
+          report.add(operation, worker.latencies.get(operation), worker.serviceTimes.get(operation),
+              worker.rejected.get(operation)[0], worker.errors.get(operation)[0]);
+        }
+      }
+      return report;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void preload() {
+    for (int user = 0; user < config.getUsers(); user++) {
+      subscriptionIds.set(user, subscriptionService.upsert(getDto(user, 0)).getId());
+      for (int plan = 1; plan < config.getPlansPerUser(); plan++) {
+        subscriptionService.upsert(getDto(user, plan));
+      }
+    }
+  }
+
+  private List<Worker> runPhase(ExecutorService executor, Duration duration)
+      throws InterruptedException, ExecutionException {
+    if (duration.isZero()) {
+      return List.of();
+    }
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    List<Future<Worker>> futures = new ArrayList<>();
+    for (int i = 0; i < config.getThreads(); i++) {
+      var worker = new Worker(i, start, end);
+      futures.add(executor.submit(() -> {
+        worker.run();
+        return worker;
+      }));
+    }
+    List<Worker> workers = new ArrayList<>();
+    for (Future<Worker> future : futures) {
+      workers.add(future.get());
+    }
+    return workers;
+  }
+
+  private CreateSubscriptionDto getDto(int user, int plan) {
+    return CreateSubscriptionDto.builder()
+        .userId(user + 1)
+        .name("plan-" + plan)
+        .provider(Provider.APPLE.name())
+        .expirationDate(Instant.now().plus(Duration.ofDays(30)))
+        .build();
+  }
+
+  private class Worker {
+
+    private final long start;
+    private final long end;
+    private final long intervalNanos;
+    private final Operation[] operations;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram> serviceTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, long[]> rejected = new EnumMap<>(Operation.class);
+    private final Map<Operation, long[]> errors = new EnumMap<>(Operation.class);
+
+    private Worker(int index, long phaseStart, long end) {
+      this.intervalNanos = config.getTargetRate() > 0
+          ? (long) (TimeUnit.SECONDS.toNanos(1) * config.getThreads() / config.getTargetRate())
+          : 0;
+      this.start = phaseStart + intervalNanos * index / config.getThreads();
+      this.end = end;
+      this.operations = weightedOperations();
+      for (Operation operation : Operation.values()) {
+        latencies.put(operation, new LatencyHistogram());
+        serviceTimes.put(operation, new LatencyHistogram());
+        rejected.put(operation, new long[1]);
+        errors.put(operation, new long[1]);
+      }
+    }
+
+    private void run() {
+      var random = ThreadLocalRandom.current();
+      long intended = start;
+      while (intended < end && !Thread.currentThread().isInterrupted()) {
+        long now = System.nanoTime();
+        if (intervalNanos > 0) {
+          while (now < intended) {
+            LockSupport.parkNanos(intended - now);
+            now = System.nanoTime();
+          }
+        } else {
+          intended = now;
+        }
+        var operation = operations[random.nextInt(operations.length)];
+        execute(operation, random);
+        long finished = System.nanoTime();
+        latencies.get(operation).record(finished - intended);
+        serviceTimes.get(operation).record(finished - now);
+        intended += intervalNanos;
+      }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random) {
+      int user = userGenerator.next(random);
+      try {
+        switch (operation) {
+          case UPSERT -> subscriptionService.upsert(getDto(user, random.nextInt(config.getPlansPerUser())));
+          case CANCEL -> subscriptionService.cancel(subscriptionIds.get(user));
+          case EXPIRE -> subscriptionService.expire(subscriptionIds.get(user));
+          case FIND_BY_USER_ID -> subscriptionDao.findByUserId(user + 1);
+        }
+      } catch (SubscriptionException e) {
+        rejected.get(operation)[0]++;
+      } catch (RuntimeException e) {
+        errors.get(operation)[0]++;
+      }
+    }
+
+    private Operation[] weightedOperations() {
+      List<Operation> weighted = new ArrayList<>();
+      config.getMix().forEach((operation, weight) -> {
+        for (int i = 0; i < weight; i++) {
+          weighted.add(operation);
+        }
+      });
+      return weighted.toArray(Operation[]::new);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.dmdev.load;
+
+import static java.time.Clock.systemUTC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionLoadGeneratorIT extends IntegrationTestBase {
+
+  private static final double IN_MEMORY_THROUGHPUT_TOLERANCE = 0.5;
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private final SubscriptionService subscriptionService = new SubscriptionService(subscriptionDao,
+      CreateSubscriptionMapper.getInstance(), CreateSubscriptionValidator.getInstance(), systemUTC());
+
+  @Test
+  void closedLoopRunReportsEveryOperation() throws Exception {
+    LoadTestConfig config = LoadTestConfig.builder()
+        .threads(2)
+        .warmup(Duration.ZERO)
+        .duration(Duration.ofSeconds(1))
+        .users(50)
+        .build();
+
+    LoadReport report = new SubscriptionLoadGenerator(config, subscriptionDao, subscriptionService).run();
+
+    for (Operation operation : Operation.values()) {
+      assertThat(report.getCount(operation)).isPositive();
+      assertThat(report.getErrors(operation)).isZero();
+      assertThat(report.getLatencyMicros(operation, 99)).isGreaterThanOrEqualTo(
+          report.getLatencyMicros(operation, 50));
+    }
+    assertThat(report.toJson()).contains("\"UPSERT\"", "\"p99_9\"", "\"coordinatedOmissionCorrected\": false");
+  }
+
+  @Test
+  void inMemoryDaoIsComparedWithJdbc() throws Exception {
+    LoadTestConfig config = LoadTestConfig.builder()
+        .threads(2)
+        .warmup(Duration.ZERO)
+        .duration(Duration.ofSeconds(1))
+        .users(50)
+        .build();
+    var inMemoryDao = new InMemorySubscriptionDao();
+    var inMemoryService = new SubscriptionService(inMemoryDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), systemUTC());
+
+    LoadReport jdbc = new SubscriptionLoadGenerator(config, subscriptionDao, subscriptionService).run();
+    LoadReport inMemory = new SubscriptionLoadGenerator(config, inMemoryDao, inMemoryService).run();
+
+    var comparison = String.format("jdbc %.0f ops/s, in-memory %.0f ops/s",
+        jdbc.getThroughput(), inMemory.getThroughput());
+    for (Operation operation : Operation.values()) {
+      assertThat(inMemory.getCount(operation)).as(comparison).isPositive();
+      assertThat(inMemory.getErrors(operation)).as(comparison).isZero();
+    }
+    // the in-memory DAO skips SQL and the pool entirely, half the JDBC throughput leaves room for noise
+    assertThat(inMemory.getThroughput()).as(comparison)
+        .isGreaterThanOrEqualTo(jdbc.getThroughput() * IN_MEMORY_THROUGHPUT_TOLERANCE);
+  }
+
+  @Test
+  void targetRateRunIsThrottled() throws Exception {
+    LoadTestConfig config = LoadTestConfig.builder()
+        .threads(2)
+        .warmup(Duration.ZERO)
+        .duration(Duration.ofSeconds(1))
+        .targetRate(200)
+        .users(50)
+        .userSkew(0)
+        .build();
+
+    LoadReport report = new SubscriptionLoadGenerator(config, subscriptionDao, subscriptionService).run();
+
+    long total = 0;
+    for (Operation operation : Operation.values()) {
+      total += report.getCount(operation);
+    }
+    assertThat(total).isBetween(150L, 210L);
+    assertThat(report.toJson()).contains("\"coordinatedOmissionCorrected\": true");
+  }
+}
@@ -0,0 +1,50 @@
+package com.dmdev.load;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipfian distribution over [0, items) as described by Gray et al., "Quickly Generating
+ * Billion-Record Synthetic Databases". Item 0 is the most popular one; a skew of 0 is uniform.
+ */
+class ZipfianGenerator {
+
+  private final int items;
+  private final double theta;
+  private final double zetaN;
+  private final double alpha;
+  private final double eta;
+
+  ZipfianGenerator(int items, double theta) {
+    if (theta < 0 || theta >= 1) {
+      throw new IllegalArgumentException("theta must be in [0, 1): " + theta);
+    }
+    this.items = items;
+    this.theta = theta;
+    this.zetaN = zeta(items, theta);
+    this.alpha = 1.0 / (1.0 - theta);
+    this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+  }
+
+  int next(RandomGenerator random) {
+    if (theta == 0) {
+      return random.nextInt(items);
+    }
+    double u = random.nextDouble();
+    double uz = u * zetaN;
+    if (uz < 1.0) {
+      return 0;
+    }
+    if (uz < 1.0 + Math.pow(0.5, theta)) {
+      return Math.min(1, items - 1);
+    }
+    return (int) Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+  }
+
+  private static double zeta(int n, double theta) {
+    double sum = 0;
+    for (int i = 1; i <= n; i++) {
+      sum += 1 / Math.pow(i, theta);
+    }
+    return sum;
+  }
+}
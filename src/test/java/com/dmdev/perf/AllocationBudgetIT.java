@@ -0,0 +1,117 @@
+package com.dmdev.perf;
+
+import static java.time.Clock.systemUTC;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Instant;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation and lock contention of the hot paths against H2, measured with JFR and compared
+ * with the budgets in {@code perf-budgets.properties}. H2 runs embedded, so its allocations on the
+ * calling thread are part of the numbers.
+ */
+class AllocationBudgetIT extends IntegrationTestBase {
+
+  private static final int WARMUP_OPERATIONS = 2_000;
+  private static final int OPERATIONS = 10_000;
+  private static final int CONCURRENT_THREADS = 4;
+  private static final Instant EXPIRATION_DATE = Instant.now().plus(Period.ofDays(30));
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+  private final SubscriptionService subscriptionService = new SubscriptionService(subscriptionDao,
+      CreateSubscriptionMapper.getInstance(), CreateSubscriptionValidator.getInstance(), systemUTC());
+  private final PerformanceBudget budget = new PerformanceBudget();
+
+  @Test
+  void upsertNewSubscription() throws Exception {
+    var profile = JfrProfile.record(1, WARMUP_OPERATIONS, OPERATIONS,
+        i -> subscriptionService.upsert(getSubscriptionDto(i)));
+
+    budget.assertWithin("upsert-new", profile);
+  }
+
+  @Test
+  void upsertExistingSubscription() throws Exception {
+    insertSubscriptions(WARMUP_OPERATIONS + OPERATIONS);
+
+    var profile = JfrProfile.record(1, WARMUP_OPERATIONS, OPERATIONS,
+        i -> subscriptionService.upsert(getSubscriptionDto(i)));
+
+    budget.assertWithin("upsert-existing", profile);
+  }
+
+  @Test
+  void cancelAndExpire() throws Exception {
+    var ids = insertSubscriptions(WARMUP_OPERATIONS + OPERATIONS);
+
+    var profile = JfrProfile.record(1, WARMUP_OPERATIONS, OPERATIONS, i -> {
+      subscriptionService.cancel(ids.get(i));
+      subscriptionService.expire(ids.get(i));
+    });
+
+    budget.assertWithin("cancel-expire", profile);
+  }
+
+  @Test
+  void findById() throws Exception {
+    var ids = insertSubscriptions(1_000);
+
+    var profile = JfrProfile.record(1, WARMUP_OPERATIONS, OPERATIONS,
+        i -> subscriptionDao.findById(ids.get(i % ids.size())));
+
+    budget.assertWithin("find-by-id", profile);
+  }
+
+  @Test
+  void findByUserId() throws Exception {
+    insertSubscriptions(1_000);
+
+    var profile = JfrProfile.record(1, WARMUP_OPERATIONS, OPERATIONS,
+        i -> subscriptionDao.findByUserId(i % 1_000));
+
+    budget.assertWithin("find-by-user-id", profile);
+  }
+
+  @Test
+  void concurrentUpsert() throws Exception {
+    var profile = JfrProfile.record(CONCURRENT_THREADS, WARMUP_OPERATIONS, OPERATIONS,
+        i -> subscriptionService.upsert(getSubscriptionDto(i)));
+
+    budget.assertWithin("concurrent-upsert", profile);
+  }
+
+  private List<Integer> insertSubscriptions(int count) {
+    List<Integer> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ids.add(subscriptionDao.insert(Subscription.builder()
+          .userId(i)
+          .name("someOne")
+          .provider(Provider.APPLE)
+          .expirationDate(EXPIRATION_DATE)
+          .status(Status.ACTIVE)
+          .build()).getId());
+    }
+    return ids;
+  }
+
+  private static CreateSubscriptionDto getSubscriptionDto(int userId) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE.name())
+        .expirationDate(EXPIRATION_DATE)
+        .build();
+  }
+}
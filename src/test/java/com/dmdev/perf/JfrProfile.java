@@ -0,0 +1,160 @@
+package com.dmdev.perf;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Runs an operation under Java Flight Recorder and aggregates the allocation and contention
+ * events of the threads that executed it.
+ *
+ * <p>Allocation events are samples: every {@code jdk.ObjectAllocationInNewTLAB} event stands for
+ * the whole TLAB that was handed out, so bytes are the sum of TLAB sizes plus objects allocated
+ * outside of TLABs, and objects are estimated by weighting each sampled object with
+ * {@code tlabSize / allocationSize}. Both converge with the number of operations, hence the
+ * thousands of iterations per flow.
+ */
+class JfrProfile {
+
+  private static final String NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+  private static final String OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+  private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+  private static final String THREAD_PARK = "jdk.ThreadPark";
+
+  private final int operations;
+  private long allocatedBytes;
+  private double allocatedObjects;
+  private long contentionEvents;
+  private final Map<String, Long> bytesByClass = new HashMap<>();
+
+  private JfrProfile(int operations) {
+    this.operations = operations;
+  }
+
+  static JfrProfile record(int threads, int warmupOperations, int operations, IntConsumer operation)
+      throws Exception {
+    Set<Long> threadIds = ConcurrentHashMap.newKeySet();
+    run(threads, warmupOperations, 0, operation, threadIds);
+
+    Path file = Files.createTempFile("subscription-profile", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable(NEW_TLAB);
+      recording.enable(OUTSIDE_TLAB);
+      recording.enable(MONITOR_ENTER).withThreshold(Duration.ZERO);
+      recording.enable(THREAD_PARK).withThreshold(Duration.ZERO);
+      recording.start();
+      run(threads, operations, warmupOperations, operation, threadIds);
+      recording.stop();
+      recording.dump(file);
+      return parse(file, operations, threadIds);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  long bytesPerOperation() {
+    return allocatedBytes / operations;
+  }
+
+  long objectsPerOperation() {
+    return Math.round(allocatedObjects / operations);
+  }
+
+  long contentionEvents() {
+    return contentionEvents;
+  }
+
+  String topAllocations(int limit) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(bytesByClass.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+    var result = new StringBuilder();
+    for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+      var entry = entries.get(i);
+      result.append(String.format("%n  %,12d B/op  %s", entry.getValue() / operations, entry.getKey()));
+    }
+    return result.toString();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%,d B/op, %,d objects/op, %d contention events",
+        bytesPerOperation(), objectsPerOperation(), contentionEvents);
+  }
+
+  private static void run(int threads, int operations, int offset, IntConsumer operation, Set<Long> threadIds)
+      throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      var next = new AtomicInteger();
+      var start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          threadIds.add(Thread.currentThread().getId());
+          start.await();
+          for (int i = next.getAndIncrement(); i < operations; i = next.getAndIncrement()) {
+            operation.accept(offset + i);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static JfrProfile parse(Path file, int operations, Set<Long> threadIds) throws Exception {
+    var profile = new JfrProfile(operations);
+    for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      if (event.getThread() == null || !threadIds.contains(event.getThread().getJavaThreadId())) {
+        continue;
+      }
+      switch (event.getEventType().getName()) {
+        case NEW_TLAB -> {
+          long tlabSize = event.getLong("tlabSize");
+          profile.allocatedBytes += tlabSize;
+          profile.allocatedObjects += (double) tlabSize / event.getLong("allocationSize");
+          profile.bytesByClass.merge(event.getClass("objectClass").getName(), tlabSize, Long::sum);
+        }
+        case OUTSIDE_TLAB -> {
+          long size = event.getLong("allocationSize");
+          profile.allocatedBytes += size;
+          profile.allocatedObjects += 1;
+          profile.bytesByClass.merge(event.getClass("objectClass").getName(), size, Long::sum);
+        }
+        case MONITOR_ENTER -> profile.contentionEvents++;
+        case THREAD_PARK -> {
+          var parkedClass = event.getClass("parkedClass");
+          // the start latch of the harness itself is not contention of the code under test
+          if (parkedClass == null || !parkedClass.getName().startsWith(CountDownLatch.class.getName())) {
+            profile.contentionEvents++;
+          }
+        }
+        default -> {
+          // other events are not enabled
+        }
+      }
+    }
+    return profile;
+  }
+}
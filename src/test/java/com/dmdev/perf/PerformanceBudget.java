@@ -0,0 +1,50 @@
+package com.dmdev.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Budgets checked in as {@code perf-budgets.properties}: {@code <flow>.bytes-per-op},
+ * {@code <flow>.objects-per-op} and {@code <flow>.contention-events}. When a change legitimately
+ * moves a number, update the file in the same commit and say why in the message.
+ */
+class PerformanceBudget {
+
+  private static final String BUDGETS_FILE = "perf-budgets.properties";
+
+  private final Properties budgets = new Properties();
+
+  PerformanceBudget() {
+    try (var inputStream = PerformanceBudget.class.getClassLoader().getResourceAsStream(BUDGETS_FILE)) {
+      budgets.load(inputStream);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void assertWithin(String flow, JfrProfile profile) {
+    var details = String.format("%s: %s%nTop allocations:%s", flow, profile, profile.topAllocations(10));
+
+    assertThat(profile.bytesPerOperation())
+        .as("bytes per operation of %s", details)
+        .isLessThanOrEqualTo(getBudget(flow, "bytes-per-op"));
+    assertThat(profile.objectsPerOperation())
+        .as("objects per operation of %s", details)
+        .isLessThanOrEqualTo(getBudget(flow, "objects-per-op"));
+    assertThat(profile.contentionEvents())
+        .as("lock contention events of %s", details)
+        .isLessThanOrEqualTo(getBudget(flow, "contention-events"));
+  }
+
+  private long getBudget(String flow, String metric) {
+    var key = flow + "." + metric;
+    var value = budgets.getProperty(key);
+    if (value == null) {
+      throw new IllegalStateException("No budget " + key + " in " + BUDGETS_FILE);
+    }
+    return Long.parseLong(value);
+  }
+}
@@ -0,0 +1,94 @@
+package com.dmdev.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  void rejectsAboveLimit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0);
+
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+    assertThat(limiter.getRejections()).isEqualTo(1);
+  }
+
+  @Test
+  void limitGrowsWhileLatencyStaysLow() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire();
+      limiter.tryAcquire();
+      limiter.release(1_000, false);
+      limiter.release(1_000, false);
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(2);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void limitShrinksWhenLatencyDegrades() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 2.0);
+    limiter.tryAcquire();
+    limiter.release(1_000, false);
+
+    for (int i = 0; i < 20; i++) {
+      limiter.tryAcquire();
+      limiter.release(50_000, false);
+    }
+
+    assertThat(limiter.getLimit()).isLessThan(8);
+  }
+
+  @Test
+  void sustainedSlowCallsKeepBackingOffUntilTimePasses() {
+    Clock clock = mock(Clock.class);
+    doReturn(0L).when(clock).millis();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 2.0, clock);
+    limiter.tryAcquire();
+    limiter.release(1_000, false);
+
+    for (int i = 0; i < 1_000; i++) {
+      limiter.tryAcquire();
+      limiter.release(50_000, false);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(1);
+
+    doReturn(Duration.ofMinutes(10).toMillis()).when(clock).millis();
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire();
+      limiter.release(50_000, false);
+    }
+    assertThat(limiter.getLimit()).isGreaterThan(1);
+  }
+
+  @Test
+  void limitNeverDropsBelowMinimum() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 10, 2.0);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire();
+      limiter.release(1_000, true);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void invalidBounds() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 2, 10, 2.0));
+  }
+}
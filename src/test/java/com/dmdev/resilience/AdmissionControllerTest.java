@@ -0,0 +1,72 @@
+package com.dmdev.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.exception.AdmissionRejectedException;
+import com.dmdev.exception.CircuitBreakerOpenException;
+import com.dmdev.exception.SubscriptionException;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+  private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 4, 2.0);
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1), Clock.systemUTC());
+  private final AdmissionController admissionController = new AdmissionController(limiter, circuitBreaker);
+
+  @Test
+  void returnsResultOfAdmittedCall() {
+    assertThat(admissionController.execute(() -> "result")).isEqualTo("result");
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void rejectsFastWhenLimitIsReached() {
+    AdmissionRejectedException rejected = admissionController.execute(
+        () -> assertThrows(AdmissionRejectedException.class, () -> admissionController.execute(() -> "nested")));
+
+    assertThat(rejected).isNotInstanceOf(CircuitBreakerOpenException.class);
+    assertThat(limiter.getRejections()).isEqualTo(1);
+  }
+
+  @Test
+  void sustainedErrorsOpenCircuit() {
+    for (int i = 0; i < 2; i++) {
+      assertThrows(IllegalStateException.class, () -> admissionController.execute(() -> {
+        throw new IllegalStateException("database down");
+      }));
+    }
+
+    assertThrows(CircuitBreakerOpenException.class, () -> admissionController.execute(() -> "result"));
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void businessErrorsDoNotOpenCircuit() {
+    for (int i = 0; i < 5; i++) {
+      assertThrows(SubscriptionException.class, () -> admissionController.execute(() -> {
+        throw new SubscriptionException("already expired");
+      }));
+    }
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void constraintViolationsDoNotBackOffOrOpenCircuit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 4, 2.0);
+    AdmissionController admissionController = new AdmissionController(limiter, circuitBreaker);
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(IllegalStateException.class, () -> admissionController.execute(() -> {
+        throw new IllegalStateException(new SQLException("duplicate key", "23505"));
+      }));
+    }
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(limiter.getLimit()).isEqualTo(4);
+  }
+}
@@ -0,0 +1,86 @@
+package com.dmdev.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final Clock clock = mock(Clock.class);
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void init() {
+    doReturn(0L).when(clock).millis();
+    circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(5), clock);
+  }
+
+  @Test
+  void tripsAfterConsecutiveFailures() {
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    circuitBreaker.onFailure();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertFalse(circuitBreaker.tryAcquire());
+    assertThat(circuitBreaker.getTrips()).isEqualTo(1);
+  }
+
+  @Test
+  void successResetsFailureCount() {
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    circuitBreaker.onSuccess();
+    circuitBreaker.onFailure();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void letsSingleProbeThroughAfterOpenDuration() {
+    trip();
+    doReturn(5_000L).when(clock).millis();
+
+    assertTrue(circuitBreaker.tryAcquire());
+    assertFalse(circuitBreaker.tryAcquire());
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+  }
+
+  @Test
+  void successfulProbeClosesBreaker() {
+    trip();
+    doReturn(5_000L).when(clock).millis();
+    circuitBreaker.tryAcquire();
+
+    circuitBreaker.onSuccess();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void failedProbeReopensBreaker() {
+    trip();
+    doReturn(5_000L).when(clock).millis();
+    circuitBreaker.tryAcquire();
+
+    circuitBreaker.onFailure();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.getTrips()).isEqualTo(2);
+  }
+
+  private void trip() {
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.onFailure();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.dmdev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpiredSubscriptionPurgerTest {
+
+  private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+  private InMemorySubscriptionDao subscriptionDao;
+  private ExpiredSubscriptionPurger purger;
+
+  @BeforeEach
+  void init() {
+    subscriptionDao = new InMemorySubscriptionDao();
+    purger = new ExpiredSubscriptionPurger(subscriptionDao, PurgeConfig.builder()
+        .retention(Duration.ofDays(30))
+        .chunkSize(3)
+        .minPause(Duration.ZERO)
+        .maxDutyCycle(1)
+        .build(), Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void purgesOnlyRowsExpiredLongerThanRetention() {
+    for (int i = 0; i < 7; i++) {
+      subscriptionDao.insert(getSubscription(i, Status.EXPIRED, NOW.minus(Duration.ofDays(31 + i))));
+    }
+    var recent = subscriptionDao.insert(getSubscription(10, Status.EXPIRED, NOW.minus(Duration.ofDays(29))));
+    var canceled = subscriptionDao.insert(getSubscription(11, Status.CANCELED, NOW.minus(Duration.ofDays(60))));
+    var active = subscriptionDao.insert(getSubscription(12, Status.ACTIVE, NOW.plus(Duration.ofDays(30))));
+
+    var progress = purger.purge();
+
+    assertThat(progress.completed()).isTrue();
+    assertThat(progress.chunks()).isEqualTo(3);
+    assertThat(progress.purged()).isEqualTo(7);
+    assertThat(purger.getPurged()).isEqualTo(7);
+    assertThat(subscriptionDao.findAll()).extracting(Subscription::getId)
+        .containsExactlyInAnyOrder(recent.getId(), canceled.getId(), active.getId());
+  }
+
+  @Test
+  void reportsProgressAfterEveryChunk() {
+    for (int i = 0; i < 6; i++) {
+      subscriptionDao.insert(getSubscription(i, Status.EXPIRED, NOW.minus(Duration.ofDays(40 - i))));
+    }
+    List<ExpiredSubscriptionPurger.Progress> reports = new ArrayList<>();
+    purger.setProgressListener(reports::add);
+
+    purger.purge();
+
+    assertThat(reports).extracting(ExpiredSubscriptionPurger.Progress::purged).containsExactly(3L, 6L);
+    assertThat(reports.get(0).reached()).isEqualTo(NOW.minus(Duration.ofDays(38)));
+  }
+
+  @Test
+  void keepsRowRenewedAfterItWasRead() {
+    var renewed = subscriptionDao.insert(getSubscription(1, Status.EXPIRED, NOW.minus(Duration.ofDays(40))));
+    subscriptionDao.insert(getSubscription(2, Status.EXPIRED, NOW.minus(Duration.ofDays(40))));
+    var chunk = subscriptionDao.findExpired(NOW.minus(Duration.ofDays(30)), null, 10);
+    subscriptionDao.update(renewed.setStatus(Status.ACTIVE).setExpirationDate(NOW.plus(Duration.ofDays(30))));
+
+    int deleted = subscriptionDao.deleteExpired(chunk.stream().map(Subscription::getId).toList(),
+        NOW.minus(Duration.ofDays(30)));
+
+    assertThat(deleted).isEqualTo(1);
+    assertThat(subscriptionDao.findById(renewed.getId())).isPresent();
+  }
+
+  @Test
+  void closedPurgerStopsBeforeFirstChunk() {
+    subscriptionDao.insert(getSubscription(1, Status.EXPIRED, NOW.minus(Duration.ofDays(40))));
+
+    purger.close();
+    var progress = purger.purge();
+
+    assertThat(progress.completed()).isFalse();
+    assertThat(subscriptionDao.size()).isEqualTo(1);
+  }
+
+  private Subscription getSubscription(int userId, Status status, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE)
+        .expirationDate(expirationDate)
+        .status(status)
+        .build();
+  }
+}
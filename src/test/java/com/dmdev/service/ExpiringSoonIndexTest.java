@@ -0,0 +1,147 @@
+package com.dmdev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpiringSoonIndexTest {
+
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(Duration.ofMinutes(30));
+
+  private InMemorySubscriptionDao subscriptionDao;
+  private SubscriptionService subscriptionService;
+  private ExpiringSoonIndex index;
+
+  @BeforeEach
+  void init() {
+    var clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    subscriptionDao = new InMemorySubscriptionDao();
+    subscriptionService = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), clock);
+    index = new ExpiringSoonIndex(subscriptionDao, Duration.ofDays(7), clock);
+    subscriptionService.addListener(index);
+  }
+
+  @Test
+  void rebuildIndexesActiveSubscriptionsWithinHorizon() {
+    var soon = subscriptionDao.insert(getSubscription(1, Status.ACTIVE, NOW.plus(Duration.ofHours(2))));
+    subscriptionDao.insert(getSubscription(2, Status.CANCELED, NOW.plus(Duration.ofHours(2))));
+    var later = subscriptionDao.insert(getSubscription(3, Status.ACTIVE, NOW.plus(Duration.ofDays(3))));
+    subscriptionDao.insert(getSubscription(4, Status.ACTIVE, NOW.plus(Duration.ofDays(30))));
+
+    index.rebuild();
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.findExpiringWithin(Duration.ofHours(24))).containsExactly(soon.getId());
+    assertThat(index.findExpiringWithin(Duration.ofDays(5))).containsExactlyInAnyOrder(soon.getId(), later.getId());
+    assertThat(index.getFallbacks()).isZero();
+  }
+
+  @Test
+  void followsServiceWrites() {
+    index.rebuild();
+
+    var subscription = subscriptionService.upsert(getSubscriptionDto(1, NOW.plus(Duration.ofHours(5))));
+    assertThat(index.findExpiringWithin(Duration.ofHours(6))).containsExactly(subscription.getId());
+
+    subscriptionService.upsert(getSubscriptionDto(1, NOW.plus(Duration.ofHours(50))));
+    assertThat(index.findExpiringWithin(Duration.ofHours(6))).isEmpty();
+    assertThat(index.findExpiringWithin(Duration.ofHours(60))).containsExactly(subscription.getId());
+
+    subscriptionService.cancel(subscription.getId());
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void hoursBeyondHorizonAreReadFromDatabase() {
+    var far = subscriptionDao.insert(getSubscription(1, Status.ACTIVE, NOW.plus(Duration.ofDays(10))));
+    var near = subscriptionDao.insert(getSubscription(2, Status.ACTIVE, NOW.plus(Duration.ofDays(1))));
+    index.rebuild();
+
+    int[] ids = index.findExpiringWithin(Duration.ofDays(14));
+
+    assertThat(ids).containsExactlyInAnyOrder(far.getId(), near.getId());
+    assertThat(index.getFallbacks()).isEqualTo(1);
+  }
+
+  @Test
+  void keepsManyIdsConsistentUnderChurn() {
+    index.rebuild();
+    List<Integer> kept = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      var subscription = subscriptionDao.insert(getSubscription(i, Status.ACTIVE, NOW.plus(Duration.ofHours(i % 48))));
+      index.onChange(subscription, null);
+      if (i % 3 == 0) {
+        index.onChange(subscription.setStatus(Status.CANCELED), Status.ACTIVE);
+      } else {
+        kept.add(subscription.getId());
+      }
+    }
+
+    assertThat(index.size()).isEqualTo(kept.size());
+    assertThat(Arrays.stream(index.findExpiringWithin(Duration.ofDays(2))).boxed())
+        .containsExactlyInAnyOrderElementsOf(kept);
+  }
+
+  @Test
+  void writesAppliedOutOfCommitOrderAreCorrectedByNextRebuild() {
+    index.rebuild();
+    var first = subscriptionDao.insert(getSubscription(1, Status.ACTIVE, NOW.plus(Duration.ofHours(5))));
+    var second = subscriptionDao.update(copyOf(first).setExpirationDate(NOW.plus(Duration.ofHours(50))));
+
+    // the listener of the later commit runs first
+    index.onChange(copyOf(second), Status.ACTIVE);
+    index.onChange(copyOf(first), null);
+    assertThat(index.findExpiringWithin(Duration.ofHours(6))).containsExactly(first.getId());
+
+    index.rebuild();
+    assertThat(index.findExpiringWithin(Duration.ofHours(6))).isEmpty();
+    assertThat(index.findExpiringWithin(Duration.ofHours(60))).containsExactly(first.getId());
+  }
+
+  private static Subscription copyOf(Subscription subscription) {
+    return Subscription.builder()
+        .id(subscription.getId())
+        .userId(subscription.getUserId())
+        .name(subscription.getName())
+        .provider(subscription.getProvider())
+        .expirationDate(subscription.getExpirationDate())
+        .status(subscription.getStatus())
+        .build();
+  }
+
+  private Subscription getSubscription(int userId, Status status, Instant expirationDate) {
+    return Subscription.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE)
+        .expirationDate(expirationDate)
+        .status(status)
+        .build();
+  }
+
+  private CreateSubscriptionDto getSubscriptionDto(int userId, Instant expirationDate) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE.name())
+        .expirationDate(expirationDate)
+        .build();
+  }
+}
@@ -0,0 +1,109 @@
+package com.dmdev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Period;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HotKeyTrackerTest {
+
+  private HotKeyTracker tracker;
+
+  @BeforeEach
+  void init() {
+    tracker = new HotKeyTracker(3, 1024, 4);
+  }
+
+  @Test
+  void keepsHottestUsersInOrder() {
+    for (int userId = 0; userId < 1_000; userId++) {
+      tracker.recordUser(userId);
+    }
+    record(7, 300);
+    record(8, 200);
+    record(9, 100);
+
+    assertThat(tracker.getTopUsers()).extracting(HotKeyTracker.HotKey::key).containsExactly(7, 8, 9);
+    assertThat(tracker.getTopUsers().get(0).count()).isGreaterThanOrEqualTo(301);
+  }
+
+  @Test
+  void cooledDownKeyLeavesTop() {
+    record(1, 1_000);
+    record(2, 10);
+    record(3, 10);
+
+    for (int i = 0; i < 10; i++) {
+      tracker.decay();
+    }
+    record(4, 50);
+
+    assertThat(tracker.getTopUsers()).extracting(HotKeyTracker.HotKey::key).startsWith(4);
+    assertThat(tracker.estimateUser(1)).isLessThan(2);
+  }
+
+  @Test
+  void decayHalvesCounts() {
+    record(1, 100);
+
+    tracker.decay();
+
+    assertThat(tracker.getTopUsers()).containsExactly(new HotKeyTracker.HotKey(1, 50));
+    assertThat(tracker.estimateUser(1)).isEqualTo(50);
+  }
+
+  @Test
+  void startedTrackerDecaysInBackground() throws InterruptedException {
+    record(1, 1_000);
+
+    tracker.start(Duration.ofMillis(10));
+    try {
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (tracker.estimateUser(1) == 1_000 && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+    } finally {
+      tracker.close();
+    }
+
+    assertThat(tracker.estimateUser(1)).isLessThan(1_000);
+  }
+
+  @Test
+  void serviceRecordsUsersAndSubscriptions() {
+    var subscriptionService = new SubscriptionService(new InMemorySubscriptionDao(),
+        CreateSubscriptionMapper.getInstance(), CreateSubscriptionValidator.getInstance(), Clock.systemUTC());
+    subscriptionService.setHotKeyTracker(tracker);
+
+    var subscription = subscriptionService.upsert(getSubscriptionDto(1));
+    subscriptionService.upsert(getSubscriptionDto(1));
+    subscriptionService.cancel(subscription.getId());
+
+    assertThat(tracker.getTopUsers()).containsExactly(new HotKeyTracker.HotKey(1, 2));
+    assertThat(tracker.getTopSubscriptions()).containsExactly(new HotKeyTracker.HotKey(subscription.getId(), 3));
+  }
+
+  private void record(int userId, int times) {
+    for (int i = 0; i < times; i++) {
+      tracker.recordUser(userId);
+    }
+  }
+
+  private CreateSubscriptionDto getSubscriptionDto(int userId) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE.name())
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .build();
+  }
+}
@@ -0,0 +1,97 @@
+package com.dmdev.service;
+
+import static java.time.Clock.systemUTC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.InMemorySubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.time.Instant;
+import java.time.Period;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionCountersTest {
+
+  private InMemorySubscriptionDao subscriptionDao;
+  private SubscriptionService subscriptionService;
+  private SubscriptionCounters counters;
+
+  @BeforeEach
+  void init() {
+    subscriptionDao = new InMemorySubscriptionDao();
+    subscriptionService = new SubscriptionService(subscriptionDao, CreateSubscriptionMapper.getInstance(),
+        CreateSubscriptionValidator.getInstance(), systemUTC());
+    counters = new SubscriptionCounters(subscriptionDao);
+    subscriptionService.addListener(counters);
+  }
+
+  @Test
+  void seededFromAggregate() {
+    subscriptionDao.insert(getSubscription(1, Provider.APPLE, Status.ACTIVE));
+    subscriptionDao.insert(getSubscription(2, Provider.APPLE, Status.CANCELED));
+    subscriptionDao.insert(getSubscription(3, Provider.GOOGLE, Status.ACTIVE));
+
+    counters.reconcile();
+
+    assertThat(counters.get(Provider.APPLE, Status.ACTIVE)).isEqualTo(1);
+    assertThat(counters.get(Provider.APPLE, Status.CANCELED)).isEqualTo(1);
+    assertThat(counters.get(Provider.GOOGLE, Status.ACTIVE)).isEqualTo(1);
+    assertThat(counters.get(Provider.GOOGLE, Status.EXPIRED)).isZero();
+  }
+
+  @Test
+  void followsServiceTransitions() {
+    counters.reconcile();
+
+    Subscription subscription = subscriptionService.upsert(getSubscriptionDto(1));
+    subscriptionService.upsert(getSubscriptionDto(2));
+    subscriptionService.cancel(subscription.getId());
+    subscriptionService.upsert(getSubscriptionDto(1));
+    subscriptionService.expire(subscription.getId());
+
+    assertThat(counters.snapshot().get(Provider.APPLE))
+        .containsEntry(Status.ACTIVE, 1L)
+        .containsEntry(Status.CANCELED, 0L)
+        .containsEntry(Status.EXPIRED, 1L);
+  }
+
+  @Test
+  void reconcileCorrectsWritesThatBypassedTheService() {
+    counters.reconcile();
+    subscriptionService.upsert(getSubscriptionDto(1));
+    Subscription direct = subscriptionDao.insert(getSubscription(2, Provider.APPLE, Status.ACTIVE));
+    subscriptionDao.delete(direct.getId());
+    subscriptionDao.insert(getSubscription(3, Provider.APPLE, Status.ACTIVE));
+    assertThat(counters.get(Provider.APPLE, Status.ACTIVE)).isEqualTo(1);
+
+    counters.reconcile();
+    subscriptionService.upsert(getSubscriptionDto(4));
+
+    assertThat(counters.get(Provider.APPLE, Status.ACTIVE)).isEqualTo(3);
+    assertThat(counters.getReconciliations()).isEqualTo(2);
+  }
+
+  private Subscription getSubscription(int userId, Provider provider, Status status) {
+    return Subscription.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(provider)
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .status(status)
+        .build();
+  }
+
+  private CreateSubscriptionDto getSubscriptionDto(int userId) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name("someOne")
+        .provider(Provider.APPLE.name())
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .build();
+  }
+}
@@ -3,7 +3,10 @@ package com.dmdev.service;
 import static java.time.Clock.systemDefaultZone;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -12,17 +15,22 @@ import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
+import com.dmdev.exception.DeadlineExceededException;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.Deadline;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import com.dmdev.validator.Error;
 import com.dmdev.validator.ValidationResult;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -59,6 +67,80 @@ class SubscriptionServiceTest {
     assertThat(actualResult.getStatus()).isEqualTo(Status.ACTIVE);
   }
 
+  @Test
+  void failingListenerDoesNotFailCommittedUpsert() {
+    CreateSubscriptionDto dto = getSubscriptionDTO();
+    Subscription subscription = getSubscription(Status.CANCELED);
+    List<Status> oldStatuses = new ArrayList<>();
+    subscriptionService.addListener((changed, oldStatus) -> {
+      throw new IllegalStateException("listener failed");
+    });
+    subscriptionService.addListener((changed, oldStatus) -> oldStatuses.add(oldStatus));
+
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+    doReturn(List.of(subscription)).when(subscriptionDao).findByUserId(dto.getUserId());
+    doReturn(subscription).when(subscriptionDao).upsert(subscription);
+
+    Subscription actualResult = subscriptionService.upsert(dto);
+
+    assertThat(actualResult.getStatus()).isEqualTo(Status.ACTIVE);
+    assertThat(oldStatuses).containsExactly(Status.CANCELED);
+  }
+
+  @Test
+  void upsertNotifiesListenersWithPreviousStatus() {
+    CreateSubscriptionDto dto = getSubscriptionDTO();
+    Subscription subscription = getSubscription(Status.CANCELED);
+    List<Subscription> list = List.of(subscription);
+    List<Status> oldStatuses = new ArrayList<>();
+    subscriptionService.addListener((changed, oldStatus) -> oldStatuses.add(oldStatus));
+
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+    doReturn(list).when(subscriptionDao).findByUserId(dto.getUserId());
+    doReturn(subscription).when(subscriptionDao).upsert(list.get(0));
+
+    subscriptionService.upsert(dto);
+
+    assertThat(oldStatuses).containsExactly(Status.CANCELED);
+  }
+
+  @Test
+  void replayedUpsertIsServedFromDedupCache() {
+    CreateSubscriptionDto dto = getSubscriptionDTO();
+    Subscription subscription = getSubscription(Status.ACTIVE).setId(1);
+    subscriptionService.setUpsertDedupCache(new UpsertDedupCache(10, Duration.ofMinutes(1), systemDefaultZone()));
+
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+    doReturn(List.of()).when(subscriptionDao).findByUserId(dto.getUserId());
+    doReturn(subscription).when(createSubscriptionMapper).map(dto);
+    doReturn(subscription).when(subscriptionDao).upsert(subscription);
+
+    subscriptionService.upsert(dto);
+    Subscription actualResult = subscriptionService.upsert(dto);
+
+    assertThat(actualResult).isEqualTo(subscription);
+    verify(subscriptionDao, times(1)).findByUserId(dto.getUserId());
+    verify(createSubscriptionValidator, times(1)).validate(dto);
+  }
+
+  @Test
+  void firstTimeUpsertSkipsLookupWhenKeyIsDefinitelyAbsent() {
+    CreateSubscriptionDto dto = getSubscriptionDTO();
+    Subscription subscription = getSubscription(Status.ACTIVE);
+    SubscriptionKeyFilter keyFilter = new SubscriptionKeyFilter(100, 0.01);
+    subscriptionService.setSubscriptionKeyFilter(keyFilter);
+
+    doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(dto);
+    doReturn(subscription).when(createSubscriptionMapper).map(dto);
+    doReturn(subscription).when(subscriptionDao).upsert(subscription);
+
+    subscriptionService.upsert(dto);
+
+    verify(subscriptionDao, never()).findByUserId(dto.getUserId());
+    assertThat(keyFilter.getSkippedLookups()).isEqualTo(1);
+    assertThat(keyFilter.mightExist(dto.getUserId(), dto.getName())).isTrue();
+  }
+
   @Test
   void upsertWithThrow() {
     CreateSubscriptionDto dto = getSubscriptionDTO();
@@ -92,6 +174,21 @@ class SubscriptionServiceTest {
         () -> subscriptionService.cancel(subscription.get().getId()));
   }
 
+  @Test
+  void cancelPastDeadlineIsCountedAsOverrun() {
+    Subscription subscription = getSubscription(Status.ACTIVE);
+
+    doAnswer(invocation -> {
+      TimeUnit.MILLISECONDS.sleep(50);
+      throw new IllegalStateException("query canceled");
+    }).when(subscriptionDao).findById(subscription.getId());
+
+    assertThrows(DeadlineExceededException.class, () -> Deadline.within(Duration.ofMillis(10),
+        () -> subscriptionService.cancel(subscription.getId())));
+
+    assertThat(subscriptionService.getDeadlineOverruns()).containsEntry("cancel", 1L);
+  }
+
   @Test
   void successfulExpire() {
     Optional<Subscription> subscription = Optional.ofNullable(getSubscription(Status.ACTIVE));
@@ -0,0 +1,153 @@
+package com.dmdev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UpsertDedupCacheTest {
+
+  private static final Instant EXPIRATION_DATE = Instant.parse("2030-01-01T00:00:00Z");
+
+  private final Clock clock = mock(Clock.class);
+  private UpsertDedupCache cache;
+
+  @BeforeEach
+  void init() {
+    doReturn(1_000L).when(clock).millis();
+    cache = new UpsertDedupCache(2, Duration.ofSeconds(10), clock);
+  }
+
+  @Test
+  void replayWithinWindowIsHit() {
+    cache.put(getDto(1, "someName"), getSubscription(1, 1, "someName"));
+
+    Optional<Subscription> actualResult = cache.get(getDto(1, "someName"));
+
+    assertThat(actualResult).contains(getSubscription(1, 1, "someName"));
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isZero();
+  }
+
+  @Test
+  void returnedSubscriptionIsDetachedCopy() {
+    cache.put(getDto(1, "someName"), getSubscription(1, 1, "someName"));
+
+    cache.get(getDto(1, "someName")).get().setStatus(Status.CANCELED);
+
+    assertThat(cache.get(getDto(1, "someName")).get().getStatus()).isEqualTo(Status.ACTIVE);
+  }
+
+  @Test
+  void replayAfterWindowIsMiss() {
+    cache.put(getDto(1, "someName"), getSubscription(1, 1, "someName"));
+    doReturn(11_000L).when(clock).millis();
+
+    assertThat(cache.get(getDto(1, "someName"))).isEmpty();
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void oldestEntryIsEvictedWhenFull() {
+    cache.put(getDto(1, "someName1"), getSubscription(1, 1, "someName1"));
+    cache.put(getDto(2, "someName2"), getSubscription(2, 2, "someName2"));
+    cache.put(getDto(3, "someName3"), getSubscription(3, 3, "someName3"));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get(getDto(1, "someName1"))).isEmpty();
+    assertThat(cache.get(getDto(3, "someName3"))).isPresent();
+    assertThat(cache.getEvictions()).isEqualTo(1);
+  }
+
+  @Test
+  void invalidateRemovesEntryOfSubscription() {
+    cache.put(getDto(1, "someName"), getSubscription(5, 1, "someName"));
+
+    cache.invalidate(5);
+
+    assertThat(cache.get(getDto(1, "someName"))).isEmpty();
+  }
+
+  @Test
+  void repeatedPutsOfSameKeyDoNotEvictOtherEntries() {
+    for (int i = 0; i < 3; i++) {
+      cache.put(getDto(1, "someName1"), getSubscription(1, 1, "someName1"));
+    }
+    cache.put(getDto(2, "someName2"), getSubscription(2, 2, "someName2"));
+
+    assertThat(cache.get(getDto(1, "someName1"))).isPresent();
+    assertThat(cache.get(getDto(2, "someName2"))).isPresent();
+    assertThat(cache.getEvictions()).isZero();
+  }
+
+  @Test
+  void invalidatedEntriesDoNotCountTowardsSize() {
+    cache.put(getDto(1, "someName1"), getSubscription(1, 1, "someName1"));
+    cache.invalidate(1);
+    cache.put(getDto(2, "someName2"), getSubscription(2, 2, "someName2"));
+    cache.put(getDto(3, "someName3"), getSubscription(3, 3, "someName3"));
+
+    assertThat(cache.get(getDto(2, "someName2"))).isPresent();
+    assertThat(cache.get(getDto(3, "someName3"))).isPresent();
+    assertThat(cache.getEvictions()).isZero();
+  }
+
+  @Test
+  void putOfInvalidatedSubscriptionIsIgnoredWithinWindow() {
+    cache.invalidate(5);
+
+    cache.put(getDto(1, "someName"), getSubscription(5, 1, "someName"));
+    assertThat(cache.get(getDto(1, "someName"))).isEmpty();
+
+    doReturn(11_000L).when(clock).millis();
+    cache.put(getDto(1, "someName"), getSubscription(5, 1, "someName"));
+    assertThat(cache.get(getDto(1, "someName"))).isPresent();
+  }
+
+  @Test
+  void newerNotificationReplacesOlderOneForSameSubscription() {
+    CreateSubscriptionDto older = getDto(1, "someName");
+    CreateSubscriptionDto newer = CreateSubscriptionDto.builder()
+        .userId(1)
+        .name("someName")
+        .provider(Provider.APPLE.name())
+        .expirationDate(EXPIRATION_DATE.plusSeconds(60))
+        .build();
+
+    cache.put(older, getSubscription(5, 1, "someName"));
+    cache.put(newer, getSubscription(5, 1, "someName"));
+
+    assertThat(cache.get(older)).isEmpty();
+    assertThat(cache.get(newer)).isPresent();
+  }
+
+  private CreateSubscriptionDto getDto(int userId, String name) {
+    return CreateSubscriptionDto.builder()
+        .userId(userId)
+        .name(name)
+        .provider(Provider.APPLE.name())
+        .expirationDate(EXPIRATION_DATE)
+        .build();
+  }
+
+  private Subscription getSubscription(int id, int userId, String name) {
+    return Subscription.builder()
+        .id(id)
+        .userId(userId)
+        .name(name)
+        .provider(Provider.APPLE)
+        .expirationDate(EXPIRATION_DATE)
+        .status(Status.ACTIVE)
+        .build();
+  }
+}
@@ -0,0 +1,63 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.integration.IntegrationTestBase;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+
+class ApplicationStartupIT extends IntegrationTestBase {
+
+  @Test
+  void startPreOpensPoolConnections() {
+    var report = ApplicationStartup.start(3, 10);
+
+    assertThat(report.idleConnections()).isGreaterThanOrEqualTo(3);
+  }
+
+  @Test
+  void preparingStatementsWritesNothing() throws SQLException {
+    try (var connection = ConnectionManager.get();
+         var statement = connection.createStatement()) {
+      SubscriptionDao.getInstance().prepareStatements(connection);
+
+      var resultSet = statement.executeQuery(
+          "SELECT (SELECT COUNT(*) FROM subscription) + (SELECT COUNT(*) FROM subscription_change)");
+      resultSet.next();
+      assertThat(resultSet.getInt(1)).isZero();
+    }
+  }
+
+  @Test
+  void closedConnectionIsReused() throws SQLException {
+    Connection first;
+    try (var connection = ConnectionManager.get()) {
+      first = connection.unwrap(Connection.class);
+      assertThat(connection.isClosed()).isFalse();
+    }
+
+    try (var connection = ConnectionManager.get()) {
+      assertThat(connection.unwrap(Connection.class)).isSameAs(first);
+    }
+  }
+
+  @Test
+  void abandonedTransactionIsRolledBackOnRelease() throws SQLException {
+    try (var connection = ConnectionManager.get();
+         var statement = connection.createStatement()) {
+      connection.setAutoCommit(false);
+      statement.executeUpdate("INSERT INTO subscription (user_id, name, provider, expiration_date, status) "
+                              + "VALUES (1, 'someOne', 'APPLE', CURRENT_TIMESTAMP, 'ACTIVE')");
+    }
+
+    try (var connection = ConnectionManager.get();
+         var statement = connection.createStatement();
+         var resultSet = statement.executeQuery("SELECT COUNT(*) FROM subscription")) {
+      resultSet.next();
+      assertThat(resultSet.getInt(1)).isZero();
+      assertThat(connection.getAutoCommit()).isTrue();
+    }
+  }
+}
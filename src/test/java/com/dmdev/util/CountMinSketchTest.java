@@ -0,0 +1,64 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTest {
+
+  @Test
+  void neverUnderestimates() {
+    CountMinSketch sketch = new CountMinSketch(256, 4);
+
+    for (int key = 0; key < 10_000; key++) {
+      for (int i = 0; i < key % 5; i++) {
+        sketch.add(key);
+      }
+    }
+
+    for (int key = 0; key < 10_000; key++) {
+      assertThat(sketch.estimate(key)).isGreaterThanOrEqualTo(key % 5);
+    }
+  }
+
+  @Test
+  void heavyHitterStandsOutOfNoise() {
+    CountMinSketch sketch = new CountMinSketch(1024, 4);
+    for (int key = 0; key < 20_000; key++) {
+      sketch.add(key);
+    }
+    long heavy = 0;
+    for (int i = 0; i < 5_000; i++) {
+      heavy = sketch.add(42);
+    }
+
+    // error bound: e / width of the 25000 total with high probability
+    assertThat(heavy).isBetween(5_001L, 5_001L + 25_000 * 3 / 1024);
+    assertThat(sketch.estimate(7)).isLessThan(100);
+  }
+
+  @Test
+  void halveDecaysCounts() {
+    CountMinSketch sketch = new CountMinSketch(64, 2);
+    for (int i = 0; i < 10; i++) {
+      sketch.add(1);
+    }
+
+    sketch.halve();
+
+    assertThat(sketch.estimate(1)).isEqualTo(5);
+  }
+
+  @Test
+  void widthIsRoundedUpToPowerOfTwo() {
+    assertThat(new CountMinSketch(1000, 3).getWidth()).isEqualTo(1024);
+    assertThat(new CountMinSketch(1, 3).getWidth()).isEqualTo(1);
+  }
+
+  @Test
+  void rejectsEmptyDimensions() {
+    assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 4));
+    assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(16, 0));
+  }
+}
@@ -0,0 +1,97 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.dmdev.exception.DeadlineExceededException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+  @Test
+  void noDeadlineOutsideWithin() {
+    assertFalse(Deadline.isSet());
+    assertThat(Deadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void innerBudgetCannotExtendOuterOne() {
+    long remaining = Deadline.within(Duration.ofMillis(100),
+        () -> Deadline.within(Duration.ofMinutes(10), Deadline::remainingNanos));
+
+    assertThat(remaining).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertFalse(Deadline.isSet());
+  }
+
+  @Test
+  void remainingSecondsAreRoundedUp() {
+    assertThat(Deadline.within(Duration.ofMillis(1_500), Deadline::remainingSeconds)).isEqualTo(2);
+    assertThat(Deadline.within(Duration.ofMillis(10), Deadline::remainingSeconds)).isEqualTo(1);
+  }
+
+  @Test
+  void failureAfterBudgetIsReportedAsDeadlineExceeded() {
+    DeadlineExceededException exception = assertThrows(DeadlineExceededException.class,
+        () -> Deadline.within(Duration.ofMillis(1), () -> {
+          sleep(20);
+          throw new IllegalStateException("query canceled");
+        }));
+
+    assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void failureWithinBudgetIsPropagatedAsIs() {
+    assertThrows(IllegalStateException.class, () -> Deadline.within(Duration.ofMinutes(1), () -> {
+      throw new IllegalStateException("constraint violation");
+    }));
+  }
+
+  @Test
+  void checkFailsOnceBudgetIsSpent() {
+    assertThrows(DeadlineExceededException.class, () -> Deadline.within(Duration.ofMillis(1), () -> {
+      sleep(20);
+      Deadline.check("someOperation");
+    }));
+  }
+
+  @Test
+  void guardIsNoOpWithoutDeadline() {
+    Statement statement = mock(Statement.class);
+
+    Deadline.guard(statement).close();
+
+    verifyNoInteractions(statement);
+  }
+
+  @Test
+  void guardSetsQueryTimeoutAndCancelsStatementWhenBudgetRunsOut() throws SQLException {
+    Statement statement = mock(Statement.class);
+
+    Deadline.within(Duration.ofMillis(50), () -> {
+      Deadline.guard(statement);
+      assertTrue(Deadline.isSet());
+    });
+
+    verify(statement).setQueryTimeout(1);
+    verify(statement, timeout(1_000)).cancel();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class GroupCommitterTest {
+
+  private final List<List<Integer>> groups = new CopyOnWriteArrayList<>();
+
+  @Test
+  void concurrentCallsAreWrittenAsOneGroup() throws Exception {
+    var committer = new GroupCommitter<Integer, Integer>(Duration.ofSeconds(5), 4, this::doubleAll, this::doubleOne);
+
+    var results = submitConcurrently(committer, 1, 2, 3, 4);
+
+    assertThat(results).containsExactly(2, 4, 6, 8);
+    assertThat(groups).hasSize(1);
+    assertThat(groups.get(0)).containsExactlyInAnyOrder(1, 2, 3, 4);
+    assertThat(committer.getGrouped()).isEqualTo(4);
+  }
+
+  @Test
+  void groupIsClosedWhenWindowPasses() {
+    var committer = new GroupCommitter<Integer, Integer>(Duration.ofMillis(10), 100, this::doubleAll, this::doubleOne);
+
+    assertThat(committer.submit(21)).isEqualTo(42);
+    assertThat(committer.submit(5)).isEqualTo(10);
+    assertThat(committer.getGroups()).isEqualTo(2);
+  }
+
+  @Test
+  void failedGroupIsRetriedCallByCall() throws Exception {
+    var committer = new GroupCommitter<Integer, Integer>(Duration.ofSeconds(5), 3, items -> {
+      throw new IllegalStateException("batch failed");
+    }, item -> {
+      if (item < 0) {
+        throw new IllegalArgumentException("negative " + item);
+      }
+      return doubleOne(item);
+    });
+
+    var executor = Executors.newFixedThreadPool(3);
+    try {
+      var ok1 = executor.submit(() -> committer.submit(1));
+      var failed = executor.submit(() -> committer.submit(-1));
+      var ok2 = executor.submit(() -> committer.submit(2));
+
+      assertThat(ok1.get()).isEqualTo(2);
+      assertThat(ok2.get()).isEqualTo(4);
+      var exception = assertThrows(Exception.class, failed::get);
+      assertThat(exception.getCause()).isInstanceOf(IllegalArgumentException.class);
+      assertThat(committer.getFallbacks()).isEqualTo(3);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void groupFailingWithCheckedExceptionIsRetriedCallByCall() throws Exception {
+    var committer = new GroupCommitter<Integer, Integer>(Duration.ofSeconds(5), 2, this::failBatch, this::doubleOne);
+
+    var results = submitConcurrently(committer, 1, 2);
+
+    assertThat(results).containsExactly(2, 4);
+    assertThat(committer.getFallbacks()).isEqualTo(2);
+  }
+
+  @Test
+  void invalidGroupSize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new GroupCommitter<Integer, Integer>(Duration.ZERO, 0, this::doubleAll, this::doubleOne));
+  }
+
+  @SneakyThrows
+  private List<Integer> failBatch(List<Integer> items) {
+    throw new SQLException("batch failed");
+  }
+
+  private List<Integer> submitConcurrently(GroupCommitter<Integer, Integer> committer, Integer... items)
+      throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(items.length);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (Integer item : items) {
+        futures.add(executor.submit(() -> committer.submit(item)));
+      }
+      List<Integer> results = new ArrayList<>();
+      for (Future<Integer> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<Integer> doubleAll(List<Integer> items) {
+    groups.add(List.copyOf(items));
+    return items.stream().map(item -> item * 2).toList();
+  }
+
+  private Integer doubleOne(Integer item) {
+    return item * 2;
+  }
+}
@@ -3,6 +3,7 @@ package com.dmdev.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -25,4 +26,14 @@ class PropertiesUtilTest {
 
     assertEquals(actualResult, expectedValue);
   }
+
+  @Test
+  void systemPropertyOverridesFileValue() {
+    System.setProperty("db.user", "someUser");
+    try {
+      assertEquals("someUser", PropertiesUtil.get("db.user"));
+    } finally {
+      System.clearProperty("db.user");
+    }
+  }
 }
@@ -0,0 +1,59 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ScalableBloomFilterTest {
+
+  @Test
+  void addedKeysAreAlwaysFound() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+    for (int userId = 0; userId < 1_000; userId++) {
+      filter.add(ScalableBloomFilter.hash(userId, "premium"));
+    }
+
+    for (int userId = 0; userId < 1_000; userId++) {
+      assertTrue(filter.mightContain(ScalableBloomFilter.hash(userId, "premium")));
+    }
+  }
+
+  @Test
+  void falsePositiveRateStaysNearConfiguredRate() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(10_000, 0.01);
+    for (int userId = 0; userId < 10_000; userId++) {
+      filter.add(ScalableBloomFilter.hash(userId, "premium"));
+    }
+
+    int falsePositives = 0;
+    for (int userId = 0; userId < 100_000; userId++) {
+      if (filter.mightContain(ScalableBloomFilter.hash(userId, "basic"))) {
+        falsePositives++;
+      }
+    }
+
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+  }
+
+  @Test
+  void filterGrowsBeyondInitialCapacityWithoutFalseNegatives() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+    for (int userId = 0; userId < 10_000; userId++) {
+      filter.add(ScalableBloomFilter.hash(userId, "premium"));
+    }
+
+    assertThat(filter.getStageCount()).isGreaterThan(1);
+    for (int userId = 0; userId < 10_000; userId++) {
+      assertTrue(filter.mightContain(ScalableBloomFilter.hash(userId, "premium")));
+    }
+  }
+
+  @Test
+  void invalidFalsePositiveRate() {
+    assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1.5));
+  }
+}
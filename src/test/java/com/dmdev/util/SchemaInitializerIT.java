@@ -0,0 +1,55 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dmdev.integration.IntegrationTestBase;
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+
+class SchemaInitializerIT extends IntegrationTestBase {
+
+  @Test
+  void migrateIsIdempotent() throws SQLException {
+    SchemaInitializer.migrate();
+    SchemaInitializer.migrate();
+
+    assertThat(queryForString("SELECT COUNT(*) FROM schema_version")).isEqualTo("4");
+  }
+
+  @Test
+  void expirationScanUsesStatusExpirationIndex() throws SQLException {
+    String plan = queryForString(
+        "EXPLAIN SELECT id FROM subscription WHERE status = 'ACTIVE' AND expiration_date < CURRENT_TIMESTAMP");
+
+    assertThat(plan).containsIgnoringCase("subscription_status_expiration_idx");
+    assertThat(plan).doesNotContain("tableScan");
+  }
+
+  @Test
+  void userIdIndexServesUserLookup() throws SQLException {
+    String firstColumn = queryForString("""
+        SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS
+        WHERE INDEX_NAME = 'SUBSCRIPTION_USER_ID_IDX' AND ORDINAL_POSITION = 1""");
+    // H2 prefers the unique (user_id, name) index on its own, so the plan is pinned to the new one
+    String plan = queryForString(
+        "EXPLAIN SELECT id, name FROM subscription USE INDEX (subscription_user_id_idx) WHERE user_id = 1");
+
+    assertThat(firstColumn).isEqualTo("USER_ID");
+    assertThat(plan).containsIgnoringCase("subscription_user_id_idx");
+    assertThat(plan).doesNotContain("tableScan");
+  }
+
+  @Test
+  void maintainPartitionsIgnoresUnpartitionedTable() {
+    assertThat(SchemaInitializer.maintainPartitions()).isZero();
+  }
+
+  private String queryForString(String sql) throws SQLException {
+    try (var connection = ConnectionManager.get();
+        var statement = connection.createStatement();
+        var resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StringPoolTest {
+
+  @Test
+  void equalStringsShareOneInstance() {
+    StringPool pool = new StringPool(10, 0.5);
+    String first = new String("premium");
+    String second = new String("premium");
+
+    assertSame(first, pool.intern(first));
+    assertSame(first, pool.intern(second));
+    assertThat(pool.getHits()).isEqualTo(1);
+    assertThat(pool.getMisses()).isEqualTo(1);
+    assertThat(pool.getBytesSaved()).isPositive();
+  }
+
+  @Test
+  void nullIsPassedThrough() {
+    assertNull(new StringPool(10, 0.5).intern(null));
+  }
+
+  @Test
+  void fullPoolStopsGrowing() {
+    StringPool pool = new StringPool(2, 0);
+
+    pool.intern("a");
+    pool.intern("b");
+    String third = new String("c");
+
+    assertSame(third, pool.intern(third));
+    assertThat(pool.size()).isEqualTo(2);
+    assertTrue(pool.isEnabled());
+  }
+
+  @Test
+  void poolDisablesItselfWhenCardinalityExplodes() {
+    StringPool pool = new StringPool(4, 0.5);
+
+    for (int i = 0; i < 20; i++) {
+      pool.intern("plan-" + i);
+    }
+
+    assertFalse(pool.isEnabled());
+    assertThat(pool.size()).isZero();
+  }
+
+  @Test
+  void poolDisablesItselfWhenCardinalityExplodesAfterGoodStart() {
+    StringPool pool = new StringPool(4, 0.5);
+    for (int i = 0; i < 10_000; i++) {
+      pool.intern(new String("plan-" + i % 4));
+    }
+
+    for (int i = 0; i < 20; i++) {
+      pool.intern("user-plan-" + i);
+    }
+
+    assertThat(pool.getHitRate()).isGreaterThan(0.5);
+    assertFalse(pool.isEnabled());
+  }
+
+  @Test
+  void racingMissesDoNotOvershootCapacity() throws InterruptedException {
+    StringPool pool = new StringPool(16, 0);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          pool.intern(thread + "-" + i);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(pool.size()).isEqualTo(16);
+  }
+}
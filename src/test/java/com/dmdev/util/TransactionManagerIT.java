@@ -0,0 +1,146 @@
+package com.dmdev.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TransactionManagerIT extends IntegrationTestBase {
+
+  private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+  @Test
+  void commitMakesAllStepsVisible() {
+    TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      subscriptionDao.insert(getSubscription("someOne2"));
+    });
+
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(2);
+  }
+
+  @Test
+  void failureRollsBackEveryStep() {
+    assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      throw new IllegalStateException("boom");
+    }));
+
+    assertThat(subscriptionDao.findByUserId(1)).isEmpty();
+  }
+
+  @Test
+  void constraintViolationRollsBackEarlierSteps() {
+    assertThrows(SQLException.class, () -> TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      subscriptionDao.insert(getSubscription("someOne2"));
+      subscriptionDao.insert(getSubscription("someOne1"));
+    }));
+
+    assertThat(subscriptionDao.findAll()).isEmpty();
+  }
+
+  @Test
+  void nestedConstraintViolationRollsBackOuterUnitOfWork() {
+    assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      try {
+        TransactionManager.inTransaction(() -> subscriptionDao.insert(getSubscription("someOne1")));
+      } catch (Exception ignored) {
+        // swallowed SQLException must still mark the unit of work rollback-only
+      }
+    }));
+
+    assertThat(subscriptionDao.findAll()).isEmpty();
+  }
+
+  @Test
+  void nestedUnitOfWorkSharesConnection() throws SQLException {
+    List<Connection> connections = new ArrayList<>();
+
+    TransactionManager.inTransaction(() -> {
+      connections.add(unwrap(ConnectionManager.get()));
+      TransactionManager.inTransaction(() -> connections.add(unwrap(ConnectionManager.get())));
+    });
+
+    assertThat(connections).hasSize(2);
+    assertThat(connections.get(0)).isSameAs(connections.get(1));
+  }
+
+  @Test
+  void nestedFailureRollsBackOuterUnitOfWork() {
+    assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      try {
+        TransactionManager.inTransaction(() -> {
+          subscriptionDao.insert(getSubscription("someOne2"));
+          throw new IllegalArgumentException("nested failure");
+        });
+      } catch (IllegalArgumentException ignored) {
+        // the outer unit of work swallows the failure but must not commit
+      }
+    }));
+
+    assertThat(subscriptionDao.findByUserId(1)).isEmpty();
+  }
+
+  @Test
+  void afterCommitCallbacksRunOnlyOnCommit() {
+    List<String> callbacks = new ArrayList<>();
+
+    TransactionManager.inTransaction(() -> TransactionManager.afterCommit(() -> callbacks.add("committed")));
+    assertThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+      TransactionManager.afterCommit(() -> callbacks.add("rolled back"));
+      throw new IllegalStateException("boom");
+    }));
+
+    assertThat(callbacks).containsExactly("committed");
+  }
+
+  @Test
+  void failingAfterCommitCallbackSkipsNeitherOthersNorResult() {
+    List<String> callbacks = new ArrayList<>();
+
+    String result = TransactionManager.inTransaction(() -> {
+      subscriptionDao.insert(getSubscription("someOne1"));
+      TransactionManager.afterCommit(() -> {
+        throw new IllegalStateException("callback failed");
+      });
+      TransactionManager.afterCommit(() -> callbacks.add("second"));
+      return "committed";
+    });
+
+    assertThat(result).isEqualTo("committed");
+    assertThat(callbacks).containsExactly("second");
+    assertThat(subscriptionDao.findByUserId(1)).hasSize(1);
+  }
+
+  private static Connection unwrap(Connection connection) {
+    try {
+      return connection.unwrap(Connection.class);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Subscription getSubscription(String name) {
+    return Subscription.builder()
+        .userId(1)
+        .name(name)
+        .provider(Provider.APPLE)
+        .expirationDate(Instant.now().plus(Period.ofDays(30)))
+        .status(Status.ACTIVE)
+        .build();
+  }
+}